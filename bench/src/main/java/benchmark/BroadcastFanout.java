@@ -0,0 +1,82 @@
+package benchmark;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+import chess.ChessMatch;
+import chess.Move;
+import chess.server.BroadcastHub;
+
+public class BroadcastFanout {
+	private static final int DEFAULT_SUBSCRIBERS = 10000;
+	private static final int DEFAULT_GAMES = 20;
+	private static final int MAX_PLIES = 120;
+
+	// One subscriber in this many sleeps on every event, standing in for a stalled network peer
+	private static final int SLOW_EVERY = 100;
+
+	// Usage: BroadcastFanout [subscribers] [games]
+	public static void main(String[] args) throws InterruptedException {
+		int subscribers = (args.length > 0) ? Integer.parseInt(args[0]) : DEFAULT_SUBSCRIBERS;
+		int games = (args.length > 1) ? Integer.parseInt(args[1]) : DEFAULT_GAMES;
+		ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+		Random random = new Random(1);
+		int[] moves = new int[ChessMatch.MAX_MOVES];
+
+		System.out.printf("%-9s %10s %12s %10s %10s %12s%n", "overflow", "moves", "us/move", "dropped", "resynced",
+				"delivered");
+
+		for (BroadcastHub.Overflow overflow : BroadcastHub.Overflow.values()) {
+			LongAdder delivered = new LongAdder();
+			long plies = 0L;
+			long nanos = 0L;
+			long dropped = 0L;
+			long resynced = 0L;
+
+			for (int game = 0; game < games; game++) {
+				ChessMatch match = new ChessMatch();
+				BroadcastHub hub = new BroadcastHub(match, executor, task -> task.accept(match), overflow,
+						BroadcastHub.DEFAULT_QUEUE_CAPACITY);
+
+				for (int i = 0; i < subscribers; i++) {
+					boolean slow = i % SLOW_EVERY == 0;
+
+					hub.subscribe(event -> {
+						if (slow) {
+							try {
+								Thread.sleep(1);
+							} catch (InterruptedException e) {
+								Thread.currentThread().interrupt();
+							}
+						}
+
+						delivered.increment();
+					});
+				}
+
+				for (int ply = 0, count; ply < MAX_PLIES && (count = match.generateLegalMoves(moves)) > 0; ply++) {
+					int move = moves[random.nextInt(count)];
+					long start = System.nanoTime();
+
+					match.performChessMove(Move.from(move), Move.to(move));
+					nanos += System.nanoTime() - start;
+					plies++;
+
+					if (match.isGameOver()) {
+						break;
+					}
+				}
+
+				dropped += hub.getDroppedCount();
+				resynced += hub.getResyncCount();
+			}
+
+			System.out.printf("%-9s %10d %12.1f %10d %10d %12d%n", overflow, plies, nanos / 1000.0 / plies, dropped,
+					resynced, delivered.sum());
+		}
+
+		executor.shutdownNow();
+	}
+}
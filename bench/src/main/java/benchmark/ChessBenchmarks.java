@@ -0,0 +1,255 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import boardgame.Position;
+import chess.ChessBoard;
+import chess.ChessMatch;
+import chess.ChessPosition;
+import chess.Color;
+import chess.PieceType;
+
+// Throughput and latency distribution of the hot paths over the middlegame corpus, run with -prof gc for B/op
+@State(Scope.Thread)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChessBenchmarks {
+	private static final String[] OPENING = { "e2", "e4", "c7", "c5", "g1", "f3", "d7", "d6", "d2", "d4", "c5", "d4",
+			"f3", "d4", "g8", "f6", "b1", "c3", "a7", "a6" };
+
+	// Rook and bishop directions as row and column steps
+	private static final int[][] DIRECTIONS = { { -1, 0 }, { 1, 0 }, { 0, -1 }, { 0, 1 }, { -1, -1 }, { -1, 1 },
+			{ 1, -1 }, { 1, 1 } };
+
+	// Every piece type of the side to move, one run each
+	@State(Scope.Thread)
+	public static class Pieces {
+		@Param({ "PAWN", "KNIGHT", "BISHOP", "ROOK", "QUEEN", "KING" })
+		public PieceType type;
+	}
+
+	private int[] moves = new int[ChessMatch.MAX_MOVES];
+	private int[] replies = new int[ChessMatch.MAX_MOVES];
+	private ChessPosition[] opening = new ChessPosition[OPENING.length];
+	private Position[] squares = new Position[64];
+
+	@Setup
+	public void prepare() {
+		for (int i = 0; i < OPENING.length; i++) {
+			this.opening[i] = ChessPosition.valueOf(OPENING[i].charAt(0), OPENING[i].charAt(1) - '0');
+		}
+
+		for (int square = 0; square < 64; square++) {
+			this.squares[square] = new Position(ChessBoard.row(square), ChessBoard.column(square));
+		}
+	}
+
+	@Benchmark
+	public long boardPiece(Corpus corpus) {
+		long found = 0L;
+
+		for (ChessMatch match : corpus.matches) {
+			ChessBoard board = match.getBoard();
+
+			for (int row = 0; row < 8; row++) {
+				for (int column = 0; column < 8; column++) {
+					if (board.piece(row, column) != null) {
+						found++;
+					}
+				}
+			}
+		}
+
+		return found;
+	}
+
+	// Every ray from every square up to the first piece, the way the pieces walked the board before the bitboards
+	@Benchmark
+	public long positionExistsRays(Corpus corpus) {
+		long steps = 0L;
+
+		for (ChessMatch match : corpus.matches) {
+			ChessBoard board = match.getBoard();
+			Position position = new Position(0, 0);
+
+			for (int square = 0; square < 64; square++) {
+				for (int[] direction : DIRECTIONS) {
+					position.setValues(ChessBoard.row(square) + direction[0], ChessBoard.column(square) + direction[1]);
+
+					while (board.positionExists(position) && board.piece(position) == null) {
+						position.setValues(position.getRow() + direction[0], position.getColumn() + direction[1]);
+						steps++;
+					}
+				}
+			}
+		}
+
+		return steps;
+	}
+
+	// The same rays through Board.emptySquares, where the mailbox layout steps into its sentinel border
+	@Benchmark
+	public long rays(Corpus corpus) {
+		long steps = 0L;
+
+		for (ChessMatch match : corpus.matches) {
+			ChessBoard board = match.getBoard();
+
+			for (int square = 0; square < 64; square++) {
+				for (int[] direction : DIRECTIONS) {
+					steps += board.emptySquares(this.squares[square], direction[0], direction[1]);
+				}
+			}
+		}
+
+		return steps;
+	}
+
+	@Benchmark
+	public void possibleMoves(Corpus corpus, Pieces pieces, Blackhole blackhole) {
+		for (ChessMatch match : corpus.matches) {
+			ChessBoard board = match.getBoard();
+
+			for (long bits = board.getBitboard(match.getCurrentPlayer(), pieces.type); bits != 0; bits &= bits - 1) {
+				blackhole.consume(board.piece(Long.numberOfTrailingZeros(bits)).possibleMoves());
+			}
+		}
+	}
+
+	@Benchmark
+	public long generateMoves(Corpus corpus, Pieces pieces) {
+		long count = 0L;
+
+		for (ChessMatch match : corpus.matches) {
+			ChessBoard board = match.getBoard();
+
+			for (long bits = board.getBitboard(match.getCurrentPlayer(), pieces.type); bits != 0; bits &= bits - 1) {
+				count += board.piece(Long.numberOfTrailingZeros(bits)).generateMoves(this.moves, 0);
+			}
+		}
+
+		return count;
+	}
+
+	@Benchmark
+	public long generateLegalMoves(Corpus corpus) {
+		long count = 0L;
+
+		for (ChessMatch match : corpus.matches) {
+			count += match.generateLegalMoves(this.moves);
+		}
+
+		return count;
+	}
+
+	@Benchmark
+	public long checkDetection(Corpus corpus) {
+		long checks = 0L;
+
+		for (ChessMatch match : corpus.matches) {
+			ChessBoard board = match.getBoard();
+			Color color = match.getCurrentPlayer();
+			Color opponent = (color == Color.WHITE) ? Color.BLACK : Color.WHITE;
+
+			if (board.isSquareAttacked(board.kingSquare(color), opponent)) {
+				checks++;
+			}
+		}
+
+		return checks;
+	}
+
+	@Benchmark
+	public long checkMateDetection(Corpus corpus) {
+		long mates = 0L;
+
+		for (ChessMatch match : corpus.matches) {
+			int count = match.generateLegalMoves(this.moves);
+
+			for (int i = 0; i < count; i++) {
+				match.makeMove(this.moves[i]);
+
+				if (match.getCheckers() != 0 && match.generateLegalMoves(this.replies) == 0) {
+					mates++;
+				}
+
+				match.unmakeMove();
+			}
+		}
+
+		return mates;
+	}
+
+	@Benchmark
+	public long hasAnyLegalMove(Corpus corpus) {
+		long mates = 0L;
+
+		for (ChessMatch match : corpus.matches) {
+			int count = match.generateLegalMoves(this.moves);
+
+			for (int i = 0; i < count; i++) {
+				match.makeMove(this.moves[i]);
+
+				if (!match.hasAnyLegalMove()) {
+					mates++;
+				}
+
+				match.unmakeMove();
+			}
+		}
+
+		return mates;
+	}
+
+	@Benchmark
+	public long makeUnmake(Corpus corpus) {
+		long keys = 0L;
+
+		for (ChessMatch match : corpus.matches) {
+			int count = match.generateLegalMoves(this.moves);
+
+			for (int i = 0; i < count; i++) {
+				match.makeMove(this.moves[i]);
+				keys ^= match.getZobristKey();
+				match.unmakeMove();
+			}
+		}
+
+		return keys;
+	}
+
+	// Replays a short opening from the start through the user-facing move API
+	@Benchmark
+	public ChessMatch performChessMove(Corpus corpus) {
+		ChessMatch match = new ChessMatch(corpus.layout);
+
+		for (int i = 0; i < this.opening.length; i += 2) {
+			match.performChessMove(this.opening[i], this.opening[i + 1]);
+		}
+
+		return match;
+	}
+
+	@Benchmark
+	public void getPieces(Corpus corpus, Blackhole blackhole) {
+		for (ChessMatch match : corpus.matches) {
+			blackhole.consume(match.getPieces());
+		}
+	}
+}
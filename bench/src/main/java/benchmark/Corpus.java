@@ -0,0 +1,45 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import boardgame.Board;
+import chess.ChessMatch;
+
+// Middlegame positions shared by the benchmarks, loaded once per trial for each board layout
+@State(Scope.Thread)
+public class Corpus {
+	public static final String[] MIDDLEGAME_FENS = {
+			"r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+			"r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+			"rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+			"r1bqkb1r/pppp1ppp/2n2n2/4p2Q/2B1P3/8/PPPP1PPP/RNB1K1NR w KQkq - 4 4",
+			"r1bq1rk1/pp2ppbp/2np1np1/8/3NP3/2N1BP2/PPPQ2PP/R3KB1R w KQ - 3 9",
+			"2r3k1/pp2qppp/2n1pn2/3p4/3P4/2PBPN2/P1Q2PPP/R4RK1 b - - 0 16" };
+
+	@Param({ "ARRAY", "MAILBOX" })
+	public Board.Layout layout;
+
+	public ChessMatch[] matches;
+
+	@Setup
+	public void load() {
+		this.matches = matches(this.layout);
+	}
+
+	public static ChessMatch[] matches() {
+		return matches(Board.Layout.ARRAY);
+	}
+
+	public static ChessMatch[] matches(Board.Layout layout) {
+		ChessMatch[] matches = new ChessMatch[MIDDLEGAME_FENS.length];
+
+		for (int i = 0; i < matches.length; i++) {
+			matches[i] = new ChessMatch(MIDDLEGAME_FENS[i], layout);
+		}
+
+		return matches;
+	}
+}
@@ -0,0 +1,65 @@
+package benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import chess.ChessMatch;
+import chess.CompactPosition;
+import chess.Move;
+
+public class GameFootprint {
+	private static final int DEFAULT_GAMES = 20000;
+	private static final int PLIES = 30;
+
+	private static ChessMatch play(Random random) {
+		ChessMatch match = new ChessMatch();
+		int[] moves = new int[ChessMatch.MAX_MOVES];
+
+		for (int ply = 0, count; ply < PLIES && (count = match.generateLegalMoves(moves)) > 0; ply++) {
+			int move = moves[random.nextInt(count)];
+
+			match.performChessMove(Move.from(move), Move.to(move));
+
+			if (match.getPromoted() != null || match.isGameOver()) {
+				break;
+			}
+		}
+
+		return match;
+	}
+
+	private static long usedHeap() {
+		Runtime runtime = Runtime.getRuntime();
+
+		for (int i = 0; i < 4; i++) {
+			System.gc();
+		}
+
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	// Usage: GameFootprint [games]
+	public static void main(String[] args) {
+		int games = (args.length > 0) ? Integer.parseInt(args[0]) : DEFAULT_GAMES;
+
+		System.out.printf("%-16s %10s %14s%n", "representation", "games", "bytes/game");
+
+		for (boolean compact : new boolean[] { false, true }) {
+			Random random = new Random(1);
+			List<Object> held = new ArrayList<>(games);
+			long before = usedHeap();
+
+			for (int i = 0; i < games; i++) {
+				ChessMatch match = play(random);
+
+				held.add(compact ? new CompactPosition(match) : match);
+			}
+
+			long bytes = usedHeap() - before;
+
+			System.out.printf("%-16s %10d %14d%n", compact ? "CompactPosition" : "ChessMatch", held.size(),
+					bytes / games);
+		}
+	}
+}
@@ -0,0 +1,53 @@
+package benchmark;
+
+import chess.ChessMatch;
+import chess.engine.ParallelSearch;
+import chess.engine.SearchResult;
+import chess.engine.TranspositionTable;
+
+public class SearchScaling {
+	private static final long DEFAULT_MILLIS_PER_POSITION = 2000L;
+	private static final int TABLE_MEGABYTES = 64;
+
+	// Powers of two, then the maximum itself
+	private static int nextThreadCount(int threads, int maxThreads) {
+		return (threads == maxThreads) ? maxThreads + 1 : Math.min(threads * 2, maxThreads);
+	}
+
+	// Usage: SearchScaling [millis per position] [max threads]
+	public static void main(String[] args) {
+		long millis = (args.length > 0) ? Long.parseLong(args[0]) : DEFAULT_MILLIS_PER_POSITION;
+		int maxThreads = (args.length > 1) ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+		double singleThreadNps = 0.0;
+
+		System.out.printf("%8s %14s %14s %12s %10s%n", "threads", "nodes", "nps", "avg depth", "efficiency");
+
+		for (int threads = 1; threads <= maxThreads; threads = nextThreadCount(threads, maxThreads)) {
+			long nodes = 0L;
+			long nanos = 0L;
+			int depths = 0;
+
+			for (ChessMatch match : Corpus.matches()) {
+				ParallelSearch search = new ParallelSearch(match, threads, new TranspositionTable(TABLE_MEGABYTES));
+				long start = System.nanoTime();
+				SearchResult result = search.bestMove(millis);
+
+				nanos += System.nanoTime() - start;
+				nodes += result.getNodes();
+				depths += result.getDepth();
+
+				search.close();
+			}
+
+			double nps = nodes * 1e9 / nanos;
+
+			if (threads == 1) {
+				singleThreadNps = nps;
+			}
+
+			// Efficiency is the aggregate speed against a perfect linear speedup of the single thread run
+			System.out.printf("%8d %14d %14d %12.1f %9.0f%%%n", threads, nodes, (long) nps,
+					(double) depths / Corpus.MIDDLEGAME_FENS.length, 100.0 * nps / (threads * singleThreadNps));
+		}
+	}
+}
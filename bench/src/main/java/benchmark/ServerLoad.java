@@ -0,0 +1,142 @@
+package benchmark;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import chess.ChessMatch;
+import chess.Move;
+import chess.server.GameProtocol;
+import chess.server.GameRegistry;
+import chess.server.LatencyStats;
+import chess.server.SessionServer;
+
+public class ServerLoad {
+	private static final int DEFAULT_IDLE = 2000;
+	private static final int DEFAULT_CLIENTS = 16;
+	private static final int DEFAULT_GAMES = 20;
+	private static final int MAX_PLIES = 80;
+
+	// Plays random legal games over one connection, returns the moves played
+	private static long play(int port, int games, long seed, LatencyStats latency) throws IOException {
+		Random random = new Random(seed);
+		long moves = 0L;
+
+		try (Socket socket = new Socket("localhost", port)) {
+			socket.setTcpNoDelay(true);
+
+			BufferedReader in = new BufferedReader(
+					new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+			Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+
+			for (int game = 0; game < games; game++) {
+				String id = request(in, out, "NEW", null).substring(3);
+				ChessMatch match = new ChessMatch();
+				int[] legal = new int[ChessMatch.MAX_MOVES];
+
+				// makeMove leaves the game state alone, so the end of the game shows as no legal moves
+				for (int ply = 0, count; ply < MAX_PLIES && (count = match.generateLegalMoves(legal)) > 0; ply++) {
+					int move = legal[random.nextInt(count)];
+
+					request(in, out, "MOVE " + id + " " + Move.toString(move), latency);
+					match.makeMove(move);
+					moves++;
+				}
+
+				request(in, out, "CLOSE " + id, null);
+			}
+
+			request(in, out, "QUIT", null);
+		}
+
+		return moves;
+	}
+
+	private static String request(BufferedReader in, Writer out, String line, LatencyStats latency)
+			throws IOException {
+		long start = System.nanoTime();
+
+		out.write(line + "\n");
+		out.flush();
+
+		String response = in.readLine();
+
+		if (latency != null) {
+			latency.record(System.nanoTime() - start);
+		}
+
+		if (response == null || !response.startsWith("OK")) {
+			throw new IOException(line + ": " + response);
+		}
+
+		return response;
+	}
+
+	// Usage: ServerLoad [idle connections] [active clients] [games per client]
+	public static void main(String[] args) throws Exception {
+		int idle = (args.length > 0) ? Integer.parseInt(args[0]) : DEFAULT_IDLE;
+		int clients = (args.length > 1) ? Integer.parseInt(args[1]) : DEFAULT_CLIENTS;
+		int games = (args.length > 2) ? Integer.parseInt(args[2]) : DEFAULT_GAMES;
+		ExecutorService workers = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+		GameRegistry registry = new GameRegistry(workers);
+		SessionServer server = new SessionServer(new GameProtocol(registry), 0);
+		Thread serverThread = new Thread(() -> {
+			try {
+				server.run();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		});
+
+		serverThread.start();
+
+		List<Socket> idleSockets = new ArrayList<>();
+
+		for (int i = 0; i < idle; i++) {
+			idleSockets.add(new Socket("localhost", server.getPort()));
+		}
+
+		ExecutorService clientPool = Executors.newFixedThreadPool(clients);
+		List<Future<Long>> results = new ArrayList<>();
+		LatencyStats clientLatency = new LatencyStats();
+		long start = System.nanoTime();
+
+		for (int i = 0; i < clients; i++) {
+			long seed = i;
+
+			results.add(clientPool.submit(() -> play(server.getPort(), games, seed, clientLatency)));
+		}
+
+		long moves = 0L;
+
+		for (Future<Long> result : results) {
+			moves += result.get();
+		}
+
+		double seconds = (System.nanoTime() - start) / 1e9;
+
+		System.out.printf("%8s %8s %10s %12s%n", "idle", "clients", "moves", "moves/s");
+		System.out.printf("%8d %8d %10d %12.0f%n", idle, clients, moves, moves / seconds);
+		System.out.println("Round trip: " + clientLatency);
+		System.out.println("Server:     " + registry.getLatency());
+
+		for (Socket socket : idleSockets) {
+			socket.close();
+		}
+
+		clientPool.shutdown();
+		server.close();
+		serverThread.join();
+		workers.shutdown();
+	}
+}
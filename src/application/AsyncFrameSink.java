@@ -0,0 +1,86 @@
+package application;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Hands frames to a slow sink, a spectator socket say, on an executor so the renderer never waits for it. Frames are
+// copied and delivered in order; once the target fails every later frame is dropped. A target that falls a whole
+// queue behind loses what is queued and gets a keyframe in its place, so a stalled one holds a bounded amount.
+public class AsyncFrameSink implements FrameSink {
+	public static final int DEFAULT_CAPACITY = 16;
+
+	private FrameSink target;
+	private Executor executor;
+	private BlockingQueue<byte[]> frames;
+	private AtomicBoolean scheduled = new AtomicBoolean();
+	private volatile IOException failure;
+
+	// Set when a frame could not be queued, every later delta is useless until the next keyframe
+	private boolean resync;
+
+	public AsyncFrameSink(FrameSink target, Executor executor, int capacity) {
+		this.target = target;
+		this.executor = executor;
+		this.frames = new ArrayBlockingQueue<>(capacity);
+	}
+
+	public AsyncFrameSink(FrameSink target, Executor executor) {
+		this(target, executor, DEFAULT_CAPACITY);
+	}
+
+	// Renderer thread, as is write
+	@Override
+	public boolean needsKeyframe() {
+		if (!this.resync && this.frames.remainingCapacity() > 0) {
+			return false;
+		}
+
+		// What is still queued is superseded by the keyframe
+		this.resync = false;
+		this.frames.clear();
+
+		return true;
+	}
+
+	// Reports the failure of an earlier delivery, so the renderer drops this sink
+	@Override
+	public void write(byte[] frame, int length) throws IOException {
+		if (this.failure != null) {
+			throw this.failure;
+		}
+
+		if (!this.frames.offer(Arrays.copyOf(frame, length))) {
+			this.resync = true;
+		}
+
+		schedule();
+	}
+
+	private void schedule() {
+		if (!this.frames.isEmpty() && this.scheduled.compareAndSet(false, true)) {
+			this.executor.execute(this::drain);
+		}
+	}
+
+	private void drain() {
+		try {
+			for (byte[] frame; (frame = this.frames.poll()) != null;) {
+				if (this.failure == null) {
+					this.target.write(frame, frame.length);
+				}
+			}
+		} catch (IOException e) {
+			this.failure = e;
+			this.frames.clear();
+		} finally {
+			this.scheduled.set(false);
+		}
+
+		schedule();
+	}
+
+}
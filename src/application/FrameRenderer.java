@@ -0,0 +1,309 @@
+package application;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import chess.ChessBoard;
+import chess.ChessMatch;
+import chess.ChessPiece;
+import chess.Color;
+
+// Draws the match screen into one reusable buffer per frame, repainting only the squares and lines that changed since
+// the previous frame through ANSI cursor addressing. A sink joining late, or one that fell behind, gets a full frame
+// instead; either way each kind of frame is rendered once and handed to every sink that needs it.
+public class FrameRenderer {
+	private static final String LETTERS = "PNBRQK";
+	private static final String FILES = "  a b c d e f g h";
+	private static final String ESC = "\u001B[";
+
+	private static final int BLACK = 1 << 8;
+	private static final int HIGHLIGHT = 1 << 9;
+	private static final int UNKNOWN = -1;
+
+	// Screen rows, counting from 1: the board, then the text lines, then the prompt
+	private static final int FILES_ROW = 9;
+	private static final int TEXT_ROWS = 11;
+	private static final int PROMPT_ROW = FILES_ROW + TEXT_ROWS;
+
+	private int[] cells = new int[64];
+	private int[] shownCells = new int[64];
+	private String[] lines = new String[TEXT_ROWS];
+	private String[] shownLines = new String[TEXT_ROWS];
+
+	private Frame delta = new Frame();
+	private Frame keyframe = new Frame();
+	private List<FrameSink> sinks = new CopyOnWriteArrayList<>();
+	private Queue<FrameSink> joining = new ConcurrentLinkedQueue<>();
+
+	public FrameRenderer() {
+		Arrays.fill(this.shownCells, UNKNOWN);
+	}
+
+	// Safe from any thread, the sink starts with a full frame at the next render
+	public void addSink(FrameSink sink) {
+		this.joining.add(sink);
+	}
+
+	public void removeSink(FrameSink sink) {
+		this.joining.remove(sink);
+		this.sinks.remove(sink);
+	}
+
+	public int getSinkCount() {
+		return sinks.size() + joining.size();
+	}
+
+	// Highlights is a bitboard of squares, possibleTargets say, and message an error line or null
+	public void render(ChessMatch chessMatch, long highlights, List<ChessPiece> captured, String message,
+			String prompt) {
+		ChessBoard board = chessMatch.getBoard();
+
+		for (int square = 0; square < 64; square++) {
+			this.cells[square] = cell(board.piece(square), ((highlights >>> square) & 1L) != 0);
+		}
+
+		text(chessMatch, captured, message);
+
+		List<FrameSink> joined = null;
+		boolean keyframed = false;
+
+		if (!this.joining.isEmpty()) {
+			encodeKeyframe(prompt);
+			keyframed = true;
+			joined = new ArrayList<>();
+
+			for (FrameSink sink; (sink = this.joining.poll()) != null;) {
+				if (send(sink, this.keyframe)) {
+					joined.add(sink);
+				}
+			}
+		} else if (this.sinks.isEmpty()) {
+			return;
+		}
+
+		encodeDelta(prompt);
+		System.arraycopy(this.cells, 0, this.shownCells, 0, 64);
+		System.arraycopy(this.lines, 0, this.shownLines, 0, TEXT_ROWS);
+
+		for (FrameSink sink : this.sinks) {
+			Frame frame = this.delta;
+
+			if (sink.needsKeyframe()) {
+				if (!keyframed) {
+					encodeKeyframe(prompt);
+					keyframed = true;
+				}
+
+				frame = this.keyframe;
+			}
+
+			if (!send(sink, frame)) {
+				this.sinks.remove(sink);
+			}
+		}
+
+		// Added after the delta went out, they already have this frame in full
+		if (joined != null) {
+			this.sinks.addAll(joined);
+		}
+	}
+
+	// A one-off board with the files line, no screen clearing or cursor addressing, for UI.printBoard
+	void printBoard(ChessPiece[][] pieces, boolean[][] highlights, FrameSink sink) {
+		for (int square = 0; square < 64; square++) {
+			int row = ChessBoard.row(square);
+			int column = ChessBoard.column(square);
+
+			this.cells[square] = cell(pieces[row][column], highlights[row][column]);
+		}
+
+		this.lines[0] = FILES;
+		print(1, sink);
+	}
+
+	// The board and status lines of a full frame, no screen clearing or prompt, for UI.printMatch
+	void printMatch(ChessMatch chessMatch, List<ChessPiece> captured, FrameSink sink) {
+		ChessBoard board = chessMatch.getBoard();
+
+		for (int square = 0; square < 64; square++) {
+			this.cells[square] = cell(board.piece(square), false);
+		}
+
+		text(chessMatch, captured, null);
+		print(TEXT_ROWS - 2, sink);
+	}
+
+	private void print(int textRows, FrameSink sink) {
+		this.keyframe.reset();
+		appendScreen(this.keyframe, textRows);
+		send(sink, this.keyframe);
+	}
+
+	private static int cell(ChessPiece piece, boolean highlight) {
+		int cell = (piece == null) ? '-'
+				: LETTERS.charAt(piece.getType().ordinal()) | ((piece.getColor() == Color.BLACK) ? BLACK : 0);
+
+		return cell | (highlight ? HIGHLIGHT : 0);
+	}
+
+	private void text(ChessMatch chessMatch, List<ChessPiece> captured, String message) {
+		StringBuilder white = new StringBuilder("White: " + UI.ANSI_WHITE + "[");
+		StringBuilder black = new StringBuilder("Black: " + UI.ANSI_YELLOW + "[");
+
+		for (ChessPiece piece : captured) {
+			StringBuilder sb = (piece.getColor() == Color.WHITE) ? white : black;
+
+			sb.append((sb.charAt(sb.length() - 1) == '[') ? "" : ", ").append(piece);
+		}
+
+		this.lines[0] = FILES;
+		this.lines[1] = "";
+		this.lines[2] = "Captured pieces: ";
+		this.lines[3] = white.append("]").append(UI.ANSI_RESET).toString();
+		this.lines[4] = black.append("]").append(UI.ANSI_RESET).toString();
+		this.lines[5] = "";
+		this.lines[6] = "Turn: " + chessMatch.getTurn();
+
+		if (chessMatch.isStalemate()) {
+			this.lines[7] = "STALEMATE!";
+			this.lines[8] = "Draw";
+		} else if (!chessMatch.isCheckMate()) {
+			this.lines[7] = "Waiting player: " + chessMatch.getCurrentPlayer()
+					+ (chessMatch.isCheck() ? " - CHECK!" : "");
+			this.lines[8] = "";
+		} else {
+			this.lines[7] = "CHECKMATE!";
+			this.lines[8] = "Winner: " + chessMatch.getWinner();
+		}
+
+		this.lines[9] = "";
+		this.lines[10] = (message == null) ? "" : message;
+	}
+
+	private void encodeKeyframe(String prompt) {
+		Frame frame = this.keyframe;
+
+		frame.reset();
+		frame.append(ESC).append("H").append(ESC).append("2J");
+		appendScreen(frame, TEXT_ROWS);
+		frame.append(prompt);
+	}
+
+	private void appendScreen(Frame frame, int textRows) {
+		for (int row = 0; row < 8; row++) {
+			frame.append(8 - row).append(' ');
+
+			for (int column = 0; column < 8; column++) {
+				appendCell(frame, this.cells[row * 8 + column]);
+			}
+
+			frame.append('\n');
+		}
+
+		for (int i = 0; i < textRows; i++) {
+			frame.append(this.lines[i]).append('\n');
+		}
+	}
+
+	private void encodeDelta(String prompt) {
+		Frame frame = this.delta;
+		int cursor = UNKNOWN;
+
+		frame.reset();
+
+		for (int square = 0; square < 64; square++) {
+			if (this.cells[square] == this.shownCells[square]) {
+				continue;
+			}
+
+			// A cell is drawn with its trailing space, so the cursor lands on the next cell of the row
+			if (cursor != square) {
+				moveTo(frame, ChessBoard.row(square) + 1, ChessBoard.column(square) * 2 + 3);
+			}
+
+			appendCell(frame, this.cells[square]);
+			cursor = (ChessBoard.column(square) == 7) ? UNKNOWN : square + 1;
+		}
+
+		for (int i = 0; i < TEXT_ROWS; i++) {
+			if (!this.lines[i].equals(this.shownLines[i])) {
+				moveTo(frame, FILES_ROW + i, 1);
+				frame.append(ESC).append("2K").append(this.lines[i]);
+			}
+		}
+
+		// Always redrawn, clearing whatever the user typed after the previous prompt
+		moveTo(frame, PROMPT_ROW, 1);
+		frame.append(ESC).append("J").append(prompt);
+	}
+
+	private static void moveTo(Frame frame, int row, int column) {
+		frame.append(ESC).append(row).append(';').append(column).append('H');
+	}
+
+	private static void appendCell(Frame frame, int cell) {
+		char letter = (char) (cell & 0xff);
+
+		if ((cell & HIGHLIGHT) != 0) {
+			frame.append(UI.ANSI_BLUE_BACKGROUND);
+		}
+
+		if (letter != '-') {
+			frame.append(((cell & BLACK) != 0) ? UI.ANSI_YELLOW : UI.ANSI_WHITE);
+		}
+
+		frame.append(letter).append(UI.ANSI_RESET).append(' ');
+	}
+
+	private static boolean send(FrameSink sink, Frame frame) {
+		try {
+			sink.write(frame.bytes, frame.length);
+
+			return true;
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	// A growable byte buffer of ASCII, anything else in a message shows as '?'
+	private static class Frame {
+		private byte[] bytes = new byte[4096];
+		private int length;
+
+		private void reset() {
+			this.length = 0;
+		}
+
+		private Frame append(char c) {
+			if (this.length == this.bytes.length) {
+				this.bytes = Arrays.copyOf(this.bytes, this.bytes.length * 2);
+			}
+
+			this.bytes[this.length++] = (byte) ((c < 0x80) ? c : '?');
+
+			return this;
+		}
+
+		private Frame append(String s) {
+			for (int i = 0; i < s.length(); i++) {
+				append(s.charAt(i));
+			}
+
+			return this;
+		}
+
+		private Frame append(int number) {
+			if (number >= 10) {
+				append(number / 10);
+			}
+
+			return append((char) ('0' + number % 10));
+		}
+	}
+
+}
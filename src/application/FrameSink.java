@@ -0,0 +1,22 @@
+package application;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+// Receives rendered frames. The bytes are only valid during the call, the renderer reuses the array for the next frame.
+public interface FrameSink {
+	void write(byte[] frame, int length) throws IOException;
+
+	// Asked before every frame: true and the frame written next is a full one instead of a delta
+	default boolean needsKeyframe() {
+		return false;
+	}
+
+	// One write and one flush per frame
+	static FrameSink of(OutputStream out) {
+		return (frame, length) -> {
+			out.write(frame, 0, length);
+			out.flush();
+		};
+	}
+}
@@ -0,0 +1,53 @@
+package application;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.JMException;
+
+import chess.metrics.Metrics;
+import chess.metrics.MetricsEndpoint;
+import chess.metrics.MetricsMBean;
+import chess.server.GameProtocol;
+import chess.server.GameRegistry;
+import chess.server.SessionServer;
+
+public class GameServer {
+	private static final int DEFAULT_PORT = 7878;
+	private static final int DEFAULT_METRICS_PORT = 9464;
+
+	// Usage: GameServer [port] [worker threads] [metrics port] [hibernate after idle seconds], metrics need
+	// -Dchess.metrics=true and games only hibernate when given a number of seconds
+	public static void main(String[] args) throws IOException, JMException {
+		int port = (args.length > 0) ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+		int workers = (args.length > 1) ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+		int metricsPort = (args.length > 2) ? Integer.parseInt(args[2]) : DEFAULT_METRICS_PORT;
+		int idleSeconds = (args.length > 3) ? Integer.parseInt(args[3]) : 0;
+		ExecutorService executor = Executors.newFixedThreadPool(workers);
+		GameRegistry registry = new GameRegistry(executor, idleSeconds > 0);
+		ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor();
+
+		if (idleSeconds > 0) {
+			sweeper.scheduleWithFixedDelay(() -> registry.hibernateIdle(TimeUnit.SECONDS.toNanos(idleSeconds)),
+					idleSeconds, idleSeconds, TimeUnit.SECONDS);
+		}
+
+		if (Metrics.ENABLED) {
+			MetricsMBean.register();
+			MetricsEndpoint endpoint = new MetricsEndpoint(metricsPort);
+
+			System.out.println("Metrics on http://localhost:" + endpoint.getPort() + MetricsEndpoint.PATH);
+		}
+
+		try (SessionServer server = new SessionServer(new GameProtocol(registry), port)) {
+			System.out.println("Listening on port " + server.getPort() + " with " + workers + " workers");
+			server.run();
+		} finally {
+			sweeper.shutdown();
+			executor.shutdown();
+		}
+	}
+}
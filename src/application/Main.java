@@ -13,22 +13,21 @@ import chess.ChessPosition;
 public class Main {
 	public static void main(String[] args) {
 		Scanner scan = new Scanner(System.in);
-		ChessMatch chessMatch = new ChessMatch();
+		ChessMatch chessMatch = (args.length > 0) ? new ChessMatch(String.join(" ", args)) : new ChessMatch();
 		List<ChessPiece> captured = new ArrayList<>();
+		FrameRenderer renderer = new FrameRenderer();
+		String message = null;
 
-		while (!chessMatch.isCheckMate()) {
-			try {
-				UI.clearScreen();
-				UI.printMatch(chessMatch, captured);
+		renderer.addSink(FrameSink.of(System.out));
 
-				System.out.print("\n\nSource: ");
+		while (!chessMatch.isGameOver()) {
+			try {
+				renderer.render(chessMatch, 0L, captured, message, "Source: ");
+				message = null;
 				ChessPosition source = UI.readChessPosition(scan);
 
-				boolean[][] possibleMoves = chessMatch.possibleMoves(source);
-				UI.clearScreen();
-				UI.printBoard(chessMatch.getPieces(), possibleMoves);
-
-				System.out.print("\nTarget: ");
+				long targets = chessMatch.possibleTargets(source.getSquare());
+				renderer.render(chessMatch, targets, captured, null, "Target: ");
 				ChessPosition target = UI.readChessPosition(scan);
 
 				ChessPiece capturedPiece = chessMatch.performChessMove(source, target);
@@ -38,26 +37,26 @@ public class Main {
 				}
 
 				if (chessMatch.getPromoted() != null) {
-					System.out.print("Enter piece for promotion (B/R/N/Q): ");
+					renderer.render(chessMatch, 0L, captured, null, "Enter piece for promotion (B/R/N/Q): ");
 					String type = scan.nextLine().toUpperCase();
 					
 					while (!type.equals("B") && !type.equals("N") && !type.equals("R") && !type.equals("Q")) {
-						System.out.print("Invalid value! Enter piece for promotion (B/R/N/Q): ");
+						renderer.render(chessMatch, 0L, captured, "Invalid value!",
+								"Enter piece for promotion (B/R/N/Q): ");
 						type = scan.nextLine().toUpperCase();
 					}
 					
 					chessMatch.replacePromotedPiece(type);
 				}
 			} catch (ChessException e) {
-				System.out.println(e.getMessage());
-				scan.nextLine();
+				// Stays on screen until the next move is entered
+				message = e.getMessage();
 			} catch (InputMismatchException e) {
-				System.out.println(e.getMessage());
-				scan.nextLine();
+				message = e.getMessage();
 			}
 		}
 
-		UI.clearScreen();
-		UI.printMatch(chessMatch, captured);
+		renderer.render(chessMatch, 0L, captured, null, "");
+		System.out.println();
 	}
 }
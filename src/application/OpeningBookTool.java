@@ -0,0 +1,91 @@
+package application;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import chess.ChessException;
+import chess.ChessMatch;
+import chess.Move;
+import chess.book.OpeningBook;
+import chess.book.OpeningBookBuilder;
+import chess.pgn.PgnGame;
+import chess.pgn.PgnReader;
+
+public class OpeningBookTool {
+	// Only the first plies of each game make it into the book
+	private static void build(String pgn, Path path, int plies) throws IOException {
+		OpeningBookBuilder builder = new OpeningBookBuilder();
+		ChessMatch match = new ChessMatch();
+		PgnGame game = new PgnGame();
+		long start = System.nanoTime();
+		long games = 0L;
+
+		try (InputStreamReader in = new InputStreamReader(new FileInputStream(pgn), StandardCharsets.UTF_8)) {
+			PgnReader reader = new PgnReader(in);
+
+			while (reader.next(game)) {
+				try {
+					match.loadFen(game.hasFen() ? game.getFen() : ChessMatch.START_FEN);
+
+					for (int i = 0; i < game.getMoveCount() && i < plies; i++) {
+						int move = match.parseSan(game.getMoveText(), game.getMoveStart(i), game.getMoveEnd(i));
+
+						builder.add(match, move);
+						match.makeMove(move);
+					}
+
+					games++;
+				} catch (ChessException e) {
+					System.out.println("Game " + game.getNumber() + " (line " + game.getLine() + ") skipped: "
+							+ e.getMessage());
+				}
+			}
+		}
+
+		builder.write(path);
+
+		System.out.printf("Games: %d  Positions: %d  Time: %d ms  Size: %d bytes%n", games,
+				builder.getPositionCount(), (System.nanoTime() - start) / 1000000, Files.size(path));
+	}
+
+	private static void probe(Path path, String fen) throws IOException {
+		OpeningBook book = new OpeningBook(path);
+		ChessMatch match = new ChessMatch(fen);
+		int[] moves = new int[ChessMatch.MAX_MOVES];
+		int[] weights = new int[ChessMatch.MAX_MOVES];
+		int count = book.probe(match, moves, weights);
+
+		System.out.println("Entries: " + book.getEntryCount());
+
+		for (int i = 0; i < count; i++) {
+			System.out.println(Move.toString(moves[i]) + " " + weights[i]);
+		}
+
+		if (count == 0) {
+			System.out.println("Position not in book");
+		}
+	}
+
+	// Usage: OpeningBookTool build <pgn> <book> [plies] | probe <book> [fen]
+	public static void main(String[] args) throws IOException {
+		if (args.length >= 3 && args[0].equals("build")) {
+			build(args[1], Paths.get(args[2]), (args.length > 3) ? Integer.parseInt(args[3]) : 16);
+		} else if (args.length >= 2 && args[0].equals("probe")) {
+			StringBuilder fen = new StringBuilder();
+
+			for (int i = 2; i < args.length; i++) {
+				fen.append(args[i]).append(' ');
+			}
+
+			probe(Paths.get(args[1]), (args.length > 2) ? fen.toString() : ChessMatch.START_FEN);
+		} else {
+			System.out.println("Usage: OpeningBookTool build <pgn> <book> [plies] | probe <book> [fen]");
+			System.exit(2);
+		}
+	}
+}
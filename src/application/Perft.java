@@ -0,0 +1,149 @@
+package application;
+
+import chess.ChessMatch;
+import chess.Move;
+
+public class Perft {
+	// https://www.chessprogramming.org/Perft_Results
+	private static final String[] SUITE_FENS = {
+			"rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+			"r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+			"8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+			"r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+			"rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+			"r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10" };
+
+	private static final long[][] SUITE_NODES = {
+			{ 20L, 400L, 8902L, 197281L, 4865609L, 119060324L },
+			{ 48L, 2039L, 97862L, 4085603L, 193690690L },
+			{ 14L, 191L, 2812L, 43238L, 674624L, 11030083L },
+			{ 6L, 264L, 9467L, 422333L, 15833292L },
+			{ 44L, 1486L, 62379L, 2103487L, 89941194L },
+			{ 46L, 2079L, 89890L, 3894594L, 164075551L } };
+
+	private static final int SUITE_DEFAULT_DEPTH = 4;
+	private static final String USAGE = "Usage: Perft suite [maxDepth] | Perft <depth> [fen]"
+			+ " | Perft divide <depth> [fen]";
+
+	private ChessMatch chessMatch;
+	private int[][] moves;
+
+	public Perft(ChessMatch chessMatch, int maxDepth) {
+		this.chessMatch = chessMatch;
+		this.moves = new int[maxDepth + 1][ChessMatch.MAX_MOVES];
+	}
+
+	public long count(int depth) {
+		if (depth == 0) {
+			return 1L;
+		}
+
+		int[] buffer = this.moves[depth];
+		int count = this.chessMatch.generateLegalMoves(buffer);
+
+		// Bulk counting: the leaves are the legal moves themselves
+		if (depth == 1) {
+			return count;
+		}
+
+		long nodes = 0L;
+
+		for (int i = 0; i < count; i++) {
+			this.chessMatch.makeMove(buffer[i]);
+			nodes += count(depth - 1);
+			this.chessMatch.unmakeMove();
+		}
+
+		return nodes;
+	}
+
+	public long divide(int depth) {
+		int[] buffer = this.moves[depth];
+		int count = this.chessMatch.generateLegalMoves(buffer);
+		long nodes = 0L;
+
+		for (int i = 0; i < count; i++) {
+			this.chessMatch.makeMove(buffer[i]);
+			long moveNodes = count(depth - 1);
+			this.chessMatch.unmakeMove();
+
+			System.out.println(Move.toString(buffer[i]) + ": " + moveNodes);
+
+			nodes += moveNodes;
+		}
+
+		return nodes;
+	}
+
+	private static void report(long nodes, long elapsedNanos) {
+		long nodesPerSecond = (elapsedNanos > 0) ? (long) (nodes * 1e9 / elapsedNanos) : 0L;
+
+		System.out.printf("Nodes: %d  Time: %d ms  NPS: %d%n", nodes, elapsedNanos / 1000000, nodesPerSecond);
+	}
+
+	private static boolean runSuite(int maxDepth) {
+		boolean passed = true;
+		long totalNodes = 0L;
+		long totalNanos = 0L;
+
+		for (int i = 0; i < SUITE_FENS.length; i++) {
+			int depth = Math.min(maxDepth, SUITE_NODES[i].length);
+			Perft perft = new Perft(new ChessMatch(SUITE_FENS[i]), depth);
+			long start = System.nanoTime();
+			long nodes = perft.count(depth);
+			long elapsed = System.nanoTime() - start;
+			long expected = SUITE_NODES[i][depth - 1];
+
+			System.out.printf("%s  %s depth %d: %d (expected %d)%n", (nodes == expected) ? "OK  " : "FAIL",
+					SUITE_FENS[i], depth, nodes, expected);
+
+			passed &= nodes == expected;
+			totalNodes += nodes;
+			totalNanos += elapsed;
+		}
+
+		report(totalNodes, totalNanos);
+
+		return passed;
+	}
+
+	// Depth 0 counts the position itself, divide and the suite need at least one ply
+	public static void main(String[] args) {
+		if (args.length == 0 || args[0].equals("suite")) {
+			int maxDepth = (args.length > 1) ? Integer.parseInt(args[1]) : SUITE_DEFAULT_DEPTH;
+
+			if (maxDepth < 1) {
+				System.out.println(USAGE);
+				System.exit(2);
+			}
+
+			if (!runSuite(maxDepth)) {
+				System.exit(1);
+			}
+
+			return;
+		}
+
+		boolean divide = args[0].equals("divide");
+		int first = divide ? 1 : 0;
+		int depth = (args.length > first) ? Integer.parseInt(args[first]) : -1;
+
+		if (depth < (divide ? 1 : 0)) {
+			System.out.println(USAGE);
+			System.exit(2);
+		}
+
+		StringBuilder fen = new StringBuilder();
+
+		for (int i = first + 1; i < args.length; i++) {
+			fen.append(args[i]).append(' ');
+		}
+
+		ChessMatch chessMatch = (fen.length() == 0) ? new ChessMatch() : new ChessMatch(fen);
+		Perft perft = new Perft(chessMatch, depth);
+		long start = System.nanoTime();
+		long nodes = divide ? perft.divide(depth) : perft.count(depth);
+
+		report(nodes, System.nanoTime() - start);
+	}
+}
@@ -0,0 +1,193 @@
+package application;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+import chess.ChessException;
+import chess.ChessMatch;
+import chess.pgn.PgnGame;
+import chess.pgn.PgnReader;
+
+public class PgnReplay {
+	// Games in flight per worker, the reader blocks once they are all taken
+	private static final int GAMES_PER_WORKER = 8;
+
+	private static final PgnGame END = new PgnGame();
+
+	private int threads;
+	private BlockingQueue<PgnGame> work;
+	private BlockingQueue<PgnGame> free;
+	private boolean printPositions;
+
+	private LongAdder games = new LongAdder();
+	private LongAdder moves = new LongAdder();
+	private LongAdder illegalGames = new LongAdder();
+
+	public PgnReplay(int threads, boolean printPositions) {
+		this.threads = threads;
+		this.work = new ArrayBlockingQueue<>(threads * GAMES_PER_WORKER + threads);
+		this.free = new ArrayBlockingQueue<>(threads * GAMES_PER_WORKER);
+		this.printPositions = printPositions;
+
+		for (int i = 0; i < threads * GAMES_PER_WORKER; i++) {
+			this.free.add(new PgnGame());
+		}
+	}
+
+	public long getGames() {
+		return games.sum();
+	}
+
+	public long getMoves() {
+		return moves.sum();
+	}
+
+	public long getIllegalGames() {
+		return illegalGames.sum();
+	}
+
+	public void run(PgnReader reader) throws IOException, InterruptedException {
+		Thread[] workers = new Thread[this.threads];
+
+		for (int i = 0; i < workers.length; i++) {
+			workers[i] = new Thread(this::work, "pgn-replay-" + i);
+			workers[i].start();
+		}
+
+		try {
+			PgnGame game = this.free.take();
+
+			while (reader.next(game)) {
+				this.work.put(game);
+				game = this.free.take();
+			}
+		} finally {
+			for (int i = 0; i < workers.length; i++) {
+				this.work.put(END);
+			}
+
+			for (Thread worker : workers) {
+				worker.join();
+			}
+		}
+	}
+
+	private void work() {
+		ChessMatch match = new ChessMatch();
+		StringBuilder report = new StringBuilder();
+
+		try {
+			for (PgnGame game = this.work.take(); game != END; game = this.work.take()) {
+				report.setLength(0);
+
+				try {
+					replay(match, game, report);
+				} catch (RuntimeException e) {
+					// Whatever failed, the game is counted and the worker carries on with a match in a known state
+					this.illegalGames.increment();
+					report.append("Game ").append(game.getNumber()).append(" (line ").append(game.getLine())
+							.append("): ").append(e).append('\n');
+					match = new ChessMatch();
+				} finally {
+					if (report.length() > 0) {
+						System.out.print(report);
+					}
+
+					// The reader waits on this buffer, it has to come back however the game ended
+					this.free.put(game);
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	// The match is reloaded for every game, so a worker keeps reusing the same pieces and undo stack
+	private void replay(ChessMatch match, PgnGame game, StringBuilder report) {
+		this.games.increment();
+
+		try {
+			match.loadFen(game.hasFen() ? game.getFen() : ChessMatch.START_FEN);
+		} catch (ChessException e) {
+			this.illegalGames.increment();
+			report.append("Game ").append(game.getNumber()).append(" (line ").append(game.getLine()).append("): ")
+					.append(e.getMessage()).append('\n');
+
+			return;
+		}
+
+		CharSequence text = game.getMoveText();
+
+		for (int i = 0; i < game.getMoveCount(); i++) {
+			try {
+				match.makeMove(match.parseSan(text, game.getMoveStart(i), game.getMoveEnd(i)));
+			} catch (ChessException e) {
+				this.illegalGames.increment();
+				this.moves.add(i);
+				report.append("Game ").append(game.getNumber()).append(" (line ").append(game.getLine())
+						.append("): move ").append((match.getTurn() + 1) / 2)
+						.append((match.getTurn() % 2 == 1) ? ". " : "... ")
+						.append(text, game.getMoveStart(i), game.getMoveEnd(i)).append(": ").append(e.getMessage())
+						.append('\n');
+
+				return;
+			}
+		}
+
+		this.moves.add(game.getMoveCount());
+
+		if (this.printPositions) {
+			report.append("Game ").append(game.getNumber()).append(": ");
+			match.appendFen(report);
+
+			if (!match.hasAnyLegalMove()) {
+				report.append((match.getCheckers() != 0) ? " checkmate" : " stalemate");
+			}
+
+			report.append('\n');
+		}
+	}
+
+	// Usage: PgnReplay <file | -> [threads] [--positions]
+	public static void main(String[] args) throws IOException, InterruptedException {
+		if (args.length == 0) {
+			System.out.println("Usage: PgnReplay <file | -> [threads] [--positions]");
+			System.exit(2);
+		}
+
+		int threads = Runtime.getRuntime().availableProcessors();
+		boolean printPositions = false;
+
+		for (int i = 1; i < args.length; i++) {
+			if (args[i].equals("--positions")) {
+				printPositions = true;
+			} else {
+				threads = Integer.parseInt(args[i]);
+			}
+		}
+
+		PgnReplay replay = new PgnReplay(threads, printPositions);
+		long start = System.nanoTime();
+
+		try (InputStream in = args[0].equals("-") ? System.in : new FileInputStream(args[0])) {
+			replay.run(new PgnReader(new InputStreamReader(in, StandardCharsets.UTF_8)));
+		}
+
+		long elapsed = System.nanoTime() - start;
+		double seconds = Math.max(elapsed, 1L) / 1e9;
+
+		System.out.printf("Games: %d  Moves: %d  Illegal: %d  Time: %d ms  Games/s: %.0f  Moves/s: %.0f%n",
+				replay.getGames(), replay.getMoves(), replay.getIllegalGames(), elapsed / 1000000,
+				replay.getGames() / seconds, replay.getMoves() / seconds);
+
+		if (replay.getIllegalGames() > 0) {
+			System.exit(1);
+		}
+	}
+}
@@ -0,0 +1,140 @@
+package application;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import chess.ChessException;
+import chess.ChessMatch;
+import chess.Move;
+import chess.PositionCodec;
+import chess.db.PositionDatabase;
+import chess.db.PositionDatabaseWriter;
+import chess.pgn.PgnGame;
+import chess.pgn.PgnReader;
+
+public class PositionDb {
+	// Every position reached in the archive is stored, followed by the game itself
+	private static void importPgn(String pgn, Path path) throws IOException {
+		ChessMatch match = new ChessMatch();
+		PgnGame game = new PgnGame();
+		int[] moves = new int[64];
+		long start = System.nanoTime();
+
+		try (PositionDatabaseWriter writer = new PositionDatabaseWriter(path);
+				InputStreamReader in = new InputStreamReader(new FileInputStream(pgn), StandardCharsets.UTF_8)) {
+			PgnReader reader = new PgnReader(in);
+			ChessMatch initial = new ChessMatch();
+
+			while (reader.next(game)) {
+				CharSequence fen = game.hasFen() ? game.getFen() : ChessMatch.START_FEN;
+
+				if (moves.length < game.getMoveCount()) {
+					moves = new int[game.getMoveCount() * 2];
+				}
+
+				try {
+					initial.loadFen(fen);
+					match.loadFen(fen);
+
+					for (int i = 0; i < game.getMoveCount(); i++) {
+						moves[i] = match.parseSan(game.getMoveText(), game.getMoveStart(i), game.getMoveEnd(i));
+						match.makeMove(moves[i]);
+						writer.addPosition(match);
+					}
+				} catch (ChessException e) {
+					System.out.println("Game " + game.getNumber() + " (line " + game.getLine() + ") skipped: "
+							+ e.getMessage());
+					continue;
+				}
+
+				writer.addGame(initial, moves, game.getMoveCount());
+			}
+
+			System.out.printf("Positions: %d  Games: %d  ", writer.getPositionCount(), writer.getGameCount());
+		}
+
+		System.out.printf("Time: %d ms  Size: %d bytes%n", (System.nanoTime() - start) / 1000000, Files.size(path));
+	}
+
+	private static void scan(Path path) throws IOException {
+		try (PositionDatabase database = new PositionDatabase(path)) {
+			long[] blackToMove = new long[1];
+			long start = System.nanoTime();
+
+			database.scan((index, buffer, offset) -> {
+				if (PositionCodec.isBlackToMove(buffer, offset)) {
+					blackToMove[0]++;
+				}
+			});
+
+			long elapsed = Math.max(System.nanoTime() - start, 1L);
+			long positions = database.getPositionCount();
+
+			System.out.printf("Positions: %d  Black to move: %d  Time: %d ms  Positions/s: %.0f  MB/s: %.0f%n",
+					positions, blackToMove[0], elapsed / 1000000, positions * 1e9 / elapsed,
+					positions * PositionCodec.SIZE * 1e9 / elapsed / (1024 * 1024));
+		}
+	}
+
+	private static void find(Path path, String fen) throws IOException {
+		try (PositionDatabase database = new PositionDatabase(path)) {
+			long key = new ChessMatch(fen).getZobristKey();
+			ChessMatch match = new ChessMatch();
+
+			System.out.println("Count: " + database.count(key));
+
+			for (long index = database.find(key); index >= 0; index = database.findNext(index)) {
+				database.readPosition(index, match);
+				System.out.println(index + ": " + match.toFen());
+			}
+		}
+	}
+
+	private static void game(Path path, long number) throws IOException {
+		try (PositionDatabase database = new PositionDatabase(path)) {
+			ChessMatch match = new ChessMatch();
+			int[] moves = new int[database.getGameLength(number)];
+			int count = database.readGameMoves(number, moves);
+			StringBuilder sb = new StringBuilder();
+
+			database.readPosition(database.getGameStart(number), match);
+
+			for (int i = 0; i < count; i++) {
+				int move = PositionCodec.expandMove(match, moves[i]);
+
+				match.makeMove(move);
+				sb.append(Move.toString(move)).append(' ');
+			}
+
+			System.out.println(sb);
+			System.out.println(match.toFen());
+		}
+	}
+
+	// Usage: PositionDb import <pgn> <db> | scan <db> | find <db> <fen> | game <db> <number>
+	public static void main(String[] args) throws IOException {
+		if (args.length >= 3 && args[0].equals("import")) {
+			importPgn(args[1], Paths.get(args[2]));
+		} else if (args.length >= 2 && args[0].equals("scan")) {
+			scan(Paths.get(args[1]));
+		} else if (args.length >= 3 && args[0].equals("find")) {
+			StringBuilder fen = new StringBuilder();
+
+			for (int i = 2; i < args.length; i++) {
+				fen.append(args[i]).append(' ');
+			}
+
+			find(Paths.get(args[1]), fen.toString());
+		} else if (args.length >= 3 && args[0].equals("game")) {
+			game(Paths.get(args[1]), Long.parseLong(args[2]));
+		} else {
+			System.out.println("Usage: PositionDb import <pgn> <db> | scan <db> | find <db> <fen> | game <db> <number>");
+			System.exit(2);
+		}
+	}
+}
@@ -0,0 +1,78 @@
+package application;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.List;
+
+import chess.ChessMatch;
+import chess.Move;
+import chess.tablebase.Tablebase;
+import chess.tablebase.TablebaseGenerator;
+
+public class TablebaseTool {
+	// A number generates every table with that many pieces
+	private static void generate(Path directory, String[] materials) throws IOException {
+		Files.createDirectories(directory);
+
+		TablebaseGenerator generator = new TablebaseGenerator(
+				new Tablebase(directory, TablebaseGenerator.CACHE_BLOCKS));
+
+		for (String material : materials) {
+			List<String> names = material.matches("\\d+") ? TablebaseGenerator.materials(Integer.parseInt(material))
+					: Collections.singletonList(material);
+
+			for (String name : names) {
+				long start = System.nanoTime();
+
+				for (String built : generator.generate(name)) {
+					Path path = directory.resolve(built + Tablebase.EXTENSION);
+
+					System.out.printf("%s: %d bytes%n", built, Files.size(path));
+				}
+
+				System.out.printf("%s done in %d ms%n", name, (System.nanoTime() - start) / 1000000);
+			}
+		}
+	}
+
+	private static void probe(Path directory, String fen) throws IOException {
+		Tablebase tablebase = new Tablebase(directory);
+		ChessMatch match = new ChessMatch(fen);
+		int result = tablebase.probe(match);
+
+		if (result == Tablebase.NONE) {
+			System.out.println("Position not in the tablebase");
+			return;
+		}
+
+		String[] wdl = { "loss", "draw", "win" };
+		int move = tablebase.bestMove(match);
+
+		System.out.println("Result: " + wdl[Tablebase.wdl(result) + 1] + "  DTZ: " + Tablebase.dtz(result)
+				+ "  Best move: " + ((move == Move.NONE) ? "-" : Move.toString(move)));
+	}
+
+	// Usage: TablebaseTool generate <dir> <material|pieces>... | probe <dir> <fen>
+	public static void main(String[] args) throws IOException {
+		if (args.length >= 3 && args[0].equals("generate")) {
+			String[] materials = new String[args.length - 2];
+
+			System.arraycopy(args, 2, materials, 0, materials.length);
+			generate(Paths.get(args[1]), materials);
+		} else if (args.length >= 3 && args[0].equals("probe")) {
+			StringBuilder fen = new StringBuilder();
+
+			for (int i = 2; i < args.length; i++) {
+				fen.append(args[i]).append(' ');
+			}
+
+			probe(Paths.get(args[1]), fen.toString());
+		} else {
+			System.out.println("Usage: TablebaseTool generate <dir> <material|pieces>... | probe <dir> <fen>");
+			System.exit(2);
+		}
+	}
+}
@@ -1,15 +1,12 @@
 package application;
 
-import java.util.Arrays;
 import java.util.InputMismatchException;
 import java.util.List;
 import java.util.Scanner;
-import java.util.stream.Collectors;
 
 import chess.ChessMatch;
 import chess.ChessPiece;
 import chess.ChessPosition;
-import chess.Color;
 
 public class UI {
 	// https://stackoverflow.com/questions/5762491/how-to-print-color-in-console-using-system-out-println
@@ -45,85 +42,23 @@ public class UI {
 			char column = s.charAt(0);
 			int row = Integer.parseInt(s.substring(1));
 
-			return new ChessPosition(column, row);
+			return ChessPosition.valueOf(column, row);
 		} catch (RuntimeException e) {
 			throw new InputMismatchException("Error reading ChessPosition. Valid values are from a1 to h8.");
 		}
 	}
 
+	// The prints below are one-off frames, Main keeps a FrameRenderer and repaints only what changed
 	public static void printBoard(ChessPiece[][] pieces) {
-		for (int l = 0; l < pieces.length; l++) {
-			System.out.print((8 - l) + " ");
-			for (int c = 0; c < pieces.length; c++) {
-				UI.printPiece(pieces[l][c], false);
-			}
-			System.out.print("\n");
-		}
-		System.out.println("  a b c d e f g h");
+		printBoard(pieces, new boolean[pieces.length][pieces.length]);
 	}
 
 	public static void printBoard(ChessPiece[][] pieces, boolean[][] possibleMoves) {
-		for (int l = 0; l < pieces.length; l++) {
-			System.out.print((8 - l) + " ");
-			for (int c = 0; c < pieces.length; c++) {
-				UI.printPiece(pieces[l][c], possibleMoves[l][c]);
-			}
-			System.out.print("\n");
-		}
-		System.out.println("  a b c d e f g h");
-	}
-
-	private static void printPiece(ChessPiece piece, boolean background) {
-		if (background) {
-			System.out.print(ANSI_BLUE_BACKGROUND);
-		}
-
-		if (piece == null) {
-			System.out.print("-" + ANSI_RESET);
-		} else {
-			if (piece.getColor() == Color.WHITE) {
-				System.out.print(ANSI_WHITE + piece + ANSI_RESET);
-			} else {
-				System.out.print(ANSI_YELLOW + piece + ANSI_RESET);
-			}
-		}
-
-		System.out.print(" ");
-	}
-
-	private static void printCapturedPieces(List<ChessPiece> captured) {
-		List<ChessPiece> white = captured.stream().filter(x -> x.getColor() == Color.WHITE)
-				.collect(Collectors.toList());
-		List<ChessPiece> black = captured.stream().filter(x -> x.getColor() == Color.BLACK)
-				.collect(Collectors.toList());
-
-		System.out.println("\nCaptured pieces: ");
-		System.out.print("White: ");
-		System.out.print(ANSI_WHITE);
-		System.out.println(Arrays.toString(white.toArray()));
-		System.out.print(ANSI_RESET);
-
-		System.out.print("Black: ");
-		System.out.print(ANSI_YELLOW);
-		System.out.println(Arrays.toString(black.toArray()));
-		System.out.print(ANSI_RESET);
+		new FrameRenderer().printBoard(pieces, possibleMoves, FrameSink.of(System.out));
 	}
 
 	public static void printMatch(ChessMatch chessMatch, List<ChessPiece> captured) {
-		printBoard(chessMatch.getPieces());
-		printCapturedPieces(captured);
-
-		System.out.print("\nTurn: " + chessMatch.getTurn());
-
-		if (!chessMatch.isCheckMate()) {
-			System.out.print("\nWaiting player: " + chessMatch.getCurrentPlayer());
-			if (chessMatch.isCheck()) {
-				System.out.println(" - CHECK!");
-			}
-		} else {
-			System.out.println("\nCHECKMATE!");
-			System.out.println("Winner: " + chessMatch.getCurrentPlayer());
-		}
+		new FrameRenderer().printMatch(chessMatch, captured, FrameSink.of(System.out));
 	}
 
 }
@@ -0,0 +1,42 @@
+package boardgame;
+
+// The original layout, one Piece[] per row
+class ArrayStorage implements BoardStorage {
+	private int rows;
+	private int columns;
+	private Piece[][] pieces;
+
+	ArrayStorage(int rows, int columns) {
+		this.rows = rows;
+		this.columns = columns;
+		this.pieces = new Piece[rows][columns];
+	}
+
+	@Override
+	public boolean exists(int row, int column) {
+		return row >= 0 && row < this.rows && column >= 0 && column < this.columns;
+	}
+
+	@Override
+	public Piece get(int row, int column) {
+		return this.pieces[row][column];
+	}
+
+	@Override
+	public void set(int row, int column, Piece piece) {
+		this.pieces[row][column] = piece;
+	}
+
+	@Override
+	public int emptySquares(int row, int column, int rowStep, int columnStep) {
+		int count = 0;
+
+		for (row += rowStep, column += columnStep; exists(row, column) && this.pieces[row][column] == null; count++) {
+			row += rowStep;
+			column += columnStep;
+		}
+
+		return count;
+	}
+
+}
@@ -1,17 +1,27 @@
 package boardgame;
 
 public class Board {
+	public enum Layout {
+		ARRAY, MAILBOX
+	}
+
 	private int rows;
 	private int columns;
-	private Piece[][] pieces;
+	private Layout layout;
+	private BoardStorage storage;
 
 	public Board(int rows, int columns) {
+		this(rows, columns, Layout.ARRAY);
+	}
+
+	public Board(int rows, int columns, Layout layout) {
 		if (rows < 1 || columns < 1) {
 			throw new BoardException("Error creating board: there must be at least 1 row and 1 column!");
 		}
 		this.rows = rows;
 		this.columns = columns;
-		this.pieces = new Piece[rows][columns];
+		this.layout = layout;
+		this.storage = (layout == Layout.MAILBOX) ? new MailboxStorage(rows, columns) : new ArrayStorage(rows, columns);
 	}
 
 	public int getRows() {
@@ -22,12 +32,21 @@ public class Board {
 		return columns;
 	}
 
+	public Layout getLayout() {
+		return layout;
+	}
+
+	// A MailboxStorage for the MAILBOX layout, for code that walks the board by index
+	public BoardStorage getStorage() {
+		return storage;
+	}
+
 	public Piece piece(int row, int column) {
 		if (!this.positionExists(row, column)) {
 			throw new BoardException("Position not on the board!");
 		}
 
-		return this.pieces[row][column];
+		return this.storage.get(row, column);
 	}
 
 	public Piece piece(Position position) {
@@ -35,7 +54,7 @@ public class Board {
 			throw new BoardException("Position not on the board!");
 		}
 
-		return this.pieces[position.getRow()][position.getColumn()];
+		return this.storage.get(position.getRow(), position.getColumn());
 	}
 
 	public void placePiece(Piece piece, Position position) {
@@ -43,7 +62,7 @@ public class Board {
 			throw new BoardException("There is already a piece on position! " + position);
 		}
 
-		this.pieces[position.getRow()][position.getColumn()] = piece;
+		this.storage.set(position.getRow(), position.getColumn(), piece);
 		piece.position = position;
 	}
 
@@ -58,19 +77,33 @@ public class Board {
 
 		Piece aux = this.piece(position);
 		aux.position = null;
-		this.pieces[position.getRow()][position.getColumn()] = null;
+		this.storage.set(position.getRow(), position.getColumn(), null);
 
 		return aux;
 	}
 
 	private boolean positionExists(int row, int column) {
-		return row >= 0 && row < this.rows && column >= 0 && column < this.columns;
+		return this.storage.exists(row, column);
 	}
 
 	public boolean positionExists(Position position) {
 		return this.positionExists(position.getRow(), position.getColumn());
 	}
 
+	// How far a ray runs from a position before the first piece or the edge. The MAILBOX layout walks indexes into
+	// its sentinel border instead of range checking every step.
+	public int emptySquares(Position position, int rowStep, int columnStep) {
+		if (!this.positionExists(position)) {
+			throw new BoardException("Position not on the board!");
+		}
+
+		if (rowStep == 0 && columnStep == 0) {
+			throw new BoardException("A ray needs a direction!");
+		}
+
+		return this.storage.emptySquares(position.getRow(), position.getColumn(), rowStep, columnStep);
+	}
+
 	public boolean thereIsAPiece(Position position) {
 		if (!this.positionExists(position)) {
 			throw new BoardException("Position not on the board!");
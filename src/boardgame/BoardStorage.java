@@ -0,0 +1,13 @@
+package boardgame;
+
+// Where a Board keeps its pieces. Board checks positions before calling in, so these never see one off the board.
+public interface BoardStorage {
+	boolean exists(int row, int column);
+
+	Piece get(int row, int column);
+
+	void set(int row, int column, Piece piece);
+
+	// Empty squares stepping away from a square, not counting it, up to the first piece or the edge
+	int emptySquares(int row, int column, int rowStep, int columnStep);
+}
@@ -0,0 +1,116 @@
+package boardgame;
+
+import java.util.Arrays;
+
+// A 10x12 style mailbox for any board size: the squares sit in one flat array inside a border of OFF_BOARD sentinels,
+// two rows deep above and below so a knight jump lands on the border too, and one column wide on each side since the
+// right border of a row is next to the left border of the following one. Walking a ray is then adding a step to an
+// index until its code is OFF_BOARD, with no range checks at all.
+public class MailboxStorage implements BoardStorage {
+	public static final byte OFF_BOARD = -1;
+	public static final byte EMPTY = 0;
+
+	private static final int BORDER = 2;
+
+	private int rows;
+	private int columns;
+	private int width;
+	private byte[] codes;
+	private Piece[] pieces;
+
+	public MailboxStorage(int rows, int columns) {
+		this.rows = rows;
+		this.columns = columns;
+		this.width = columns + 2;
+		this.codes = new byte[(rows + 2 * BORDER) * this.width];
+		this.pieces = new Piece[this.codes.length];
+
+		Arrays.fill(this.codes, OFF_BOARD);
+
+		for (int row = 0; row < rows; row++) {
+			Arrays.fill(this.codes, index(row, 0), index(row, columns), EMPTY);
+		}
+	}
+
+	public int index(int row, int column) {
+		return (row + BORDER) * this.width + column + 1;
+	}
+
+	public int row(int index) {
+		return index / this.width - BORDER;
+	}
+
+	public int column(int index) {
+		return index % this.width - 1;
+	}
+
+	// The index step of a move, -width for one row up and so on
+	public int step(int rows, int columns) {
+		return rows * this.width + columns;
+	}
+
+	public byte code(int index) {
+		return this.codes[index];
+	}
+
+	public boolean isOffBoard(int index) {
+		return this.codes[index] == OFF_BOARD;
+	}
+
+	public Piece piece(int index) {
+		return this.pieces[index];
+	}
+
+	// An arbitrary row and column could be anywhere, even wrap into another row, so this one stays a range check: two
+	// unsigned compares, negative values being huge. Rays go through emptySquares, which only needs the sentinel.
+	@Override
+	public boolean exists(int row, int column) {
+		return Integer.compareUnsigned(row, this.rows) < 0 && Integer.compareUnsigned(column, this.columns) < 0;
+	}
+
+	@Override
+	public Piece get(int row, int column) {
+		return this.pieces[index(row, column)];
+	}
+
+	@Override
+	public void set(int row, int column, Piece piece) {
+		int index = index(row, column);
+
+		this.pieces[index] = piece;
+		this.codes[index] = (piece == null) ? EMPTY : piece.getCode();
+	}
+
+	// One step from a square lands at worst on the border, as long as it is no longer than the border is deep
+	@Override
+	public int emptySquares(int row, int column, int rowStep, int columnStep) {
+		if (rowStep < -BORDER || rowStep > BORDER || columnStep < -1 || columnStep > 1) {
+			int count = 0;
+
+			for (row += rowStep, column += columnStep; exists(row, column) && get(row, column) == null; count++) {
+				row += rowStep;
+				column += columnStep;
+			}
+
+			return count;
+		}
+
+		int step = step(rowStep, columnStep);
+		int count = 0;
+
+		for (int index = index(row, column) + step; this.codes[index] == EMPTY; index += step) {
+			count++;
+		}
+
+		return count;
+	}
+
+	public int getRows() {
+		return rows;
+	}
+
+	public int getColumns() {
+		return columns;
+	}
+
+}
@@ -13,6 +13,11 @@ public abstract class Piece {
 		return board;
 	}
 
+	// What a mailbox board stores for the piece, any positive byte; games without piece codes just mark the square
+	public byte getCode() {
+		return 1;
+	}
+
 	public abstract boolean[][] possibleMoves();
 
 	public boolean possibleMove(Position position) {
@@ -23,7 +28,7 @@ public abstract class Piece {
 		boolean[][] mat = possibleMoves();
 
 		for (int l = 0; l < mat.length; l++) {
-			for (int c = 0; c < mat.length; c++) {
+			for (int c = 0; c < mat[l].length; c++) {
 				if (mat[l][c]) {
 					return true;
 				}
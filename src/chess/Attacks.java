@@ -0,0 +1,222 @@
+package chess;
+
+public final class Attacks {
+	private static final int[][] ROOK_DIRECTIONS = { { -1, 0 }, { 0, 1 }, { 1, 0 }, { 0, -1 } };
+	private static final int[][] BISHOP_DIRECTIONS = { { -1, -1 }, { -1, 1 }, { 1, 1 }, { 1, -1 } };
+	private static final int[][] KNIGHT_JUMPS = { { -1, -2 }, { -2, -1 }, { -2, 1 }, { -1, 2 }, { 1, 2 }, { 2, 1 },
+			{ 2, -1 }, { 1, -2 } };
+
+	private static final long[] KNIGHT = new long[64];
+	private static final long[] KING = new long[64];
+	private static final long[][] PAWN = new long[Color.values().length][64];
+
+	private static final long[] ROOK_MASKS = new long[64];
+	private static final long[] ROOK_MAGICS = new long[64];
+	private static final int[] ROOK_SHIFTS = new int[64];
+	private static final long[][] ROOK_TABLE = new long[64][];
+
+	private static final long[] BISHOP_MASKS = new long[64];
+	private static final long[] BISHOP_MAGICS = new long[64];
+	private static final int[] BISHOP_SHIFTS = new int[64];
+	private static final long[][] BISHOP_TABLE = new long[64][];
+
+	private static final long[][] BETWEEN = new long[64][64];
+	private static final long[][] LINE = new long[64][64];
+
+	private static long seed = 0x9E3779B97F4A7C15L;
+
+	static {
+		for (int square = 0; square < 64; square++) {
+			int row = ChessBoard.row(square);
+			int column = ChessBoard.column(square);
+
+			KNIGHT[square] = stepAttacks(row, column, KNIGHT_JUMPS);
+			KING[square] = stepAttacks(row, column, ROOK_DIRECTIONS) | stepAttacks(row, column, BISHOP_DIRECTIONS);
+			PAWN[Color.WHITE.ordinal()][square] = stepAttacks(row, column, new int[][] { { -1, -1 }, { -1, 1 } });
+			PAWN[Color.BLACK.ordinal()][square] = stepAttacks(row, column, new int[][] { { 1, -1 }, { 1, 1 } });
+
+			initMagic(square, ROOK_DIRECTIONS, ROOK_MASKS, ROOK_MAGICS, ROOK_SHIFTS, ROOK_TABLE);
+			initMagic(square, BISHOP_DIRECTIONS, BISHOP_MASKS, BISHOP_MAGICS, BISHOP_SHIFTS, BISHOP_TABLE);
+		}
+
+		for (int a = 0; a < 64; a++) {
+			for (int b = 0; b < 64; b++) {
+				initLine(a, b, ROOK_DIRECTIONS);
+				initLine(a, b, BISHOP_DIRECTIONS);
+			}
+		}
+	}
+
+	private Attacks() {
+	}
+
+	public static long knightAttacks(int square) {
+		return KNIGHT[square];
+	}
+
+	public static long kingAttacks(int square) {
+		return KING[square];
+	}
+
+	public static long pawnAttacks(Color color, int square) {
+		return PAWN[color.ordinal()][square];
+	}
+
+	public static long rookAttacks(int square, long occupancy) {
+		return ROOK_TABLE[square][(int) (((occupancy & ROOK_MASKS[square]) * ROOK_MAGICS[square]) >>> ROOK_SHIFTS[square])];
+	}
+
+	public static long bishopAttacks(int square, long occupancy) {
+		return BISHOP_TABLE[square][(int) (((occupancy & BISHOP_MASKS[square]) * BISHOP_MAGICS[square])
+				>>> BISHOP_SHIFTS[square])];
+	}
+
+	public static long queenAttacks(int square, long occupancy) {
+		return rookAttacks(square, occupancy) | bishopAttacks(square, occupancy);
+	}
+
+	public static long between(int a, int b) {
+		return BETWEEN[a][b];
+	}
+
+	public static long line(int a, int b) {
+		return LINE[a][b];
+	}
+
+	private static void initLine(int a, int b, int[][] directions) {
+		long bitA = 1L << a;
+		long bitB = 1L << b;
+
+		if (a == b || (slidingAttacks(a, 0L, directions) & bitB) == 0) {
+			return;
+		}
+
+		BETWEEN[a][b] = slidingAttacks(a, bitB, directions) & slidingAttacks(b, bitA, directions);
+		LINE[a][b] = (slidingAttacks(a, 0L, directions) & slidingAttacks(b, 0L, directions)) | bitA | bitB;
+	}
+
+	private static boolean onBoard(int row, int column) {
+		return row >= 0 && row < 8 && column >= 0 && column < 8;
+	}
+
+	private static long stepAttacks(int row, int column, int[][] steps) {
+		long attacks = 0L;
+
+		for (int[] step : steps) {
+			if (onBoard(row + step[0], column + step[1])) {
+				attacks |= 1L << ChessBoard.square(row + step[0], column + step[1]);
+			}
+		}
+
+		return attacks;
+	}
+
+	private static long slidingAttacks(int square, long occupancy, int[][] directions) {
+		long attacks = 0L;
+
+		for (int[] direction : directions) {
+			int row = ChessBoard.row(square) + direction[0];
+			int column = ChessBoard.column(square) + direction[1];
+
+			while (onBoard(row, column)) {
+				long bit = 1L << ChessBoard.square(row, column);
+
+				attacks |= bit;
+
+				if ((occupancy & bit) != 0) {
+					break;
+				}
+
+				row += direction[0];
+				column += direction[1];
+			}
+		}
+
+		return attacks;
+	}
+
+	private static long relevantMask(int square, int[][] directions) {
+		long mask = 0L;
+
+		for (int[] direction : directions) {
+			int row = ChessBoard.row(square) + direction[0];
+			int column = ChessBoard.column(square) + direction[1];
+
+			// The last square of a ray never blocks anything behind it
+			while (onBoard(row + direction[0], column + direction[1])) {
+				mask |= 1L << ChessBoard.square(row, column);
+
+				row += direction[0];
+				column += direction[1];
+			}
+		}
+
+		return mask;
+	}
+
+	private static void initMagic(int square, int[][] directions, long[] masks, long[] magics, int[] shifts,
+			long[][] tables) {
+		long mask = relevantMask(square, directions);
+		int bits = Long.bitCount(mask);
+		int size = 1 << bits;
+		long[] occupancies = new long[size];
+		long[] attacks = new long[size];
+		int n = 0;
+
+		// Carry-rippler enumeration of every subset of the mask
+		long subset = 0L;
+
+		do {
+			occupancies[n] = subset;
+			attacks[n] = slidingAttacks(square, subset, directions);
+			n++;
+			subset = (subset - mask) & mask;
+		} while (subset != 0);
+
+		long[] table = new long[size];
+		int[] epoch = new int[size];
+		int attempt = 0;
+
+		while (true) {
+			long magic = nextRandom() & nextRandom() & nextRandom();
+
+			if (Long.bitCount((mask * magic) & 0xFF00000000000000L) < 6) {
+				continue;
+			}
+
+			attempt++;
+
+			boolean collision = false;
+
+			for (int i = 0; i < size && !collision; i++) {
+				int index = (int) ((occupancies[i] * magic) >>> (64 - bits));
+
+				if (epoch[index] != attempt) {
+					epoch[index] = attempt;
+					table[index] = attacks[i];
+				} else if (table[index] != attacks[i]) {
+					collision = true;
+				}
+			}
+
+			if (!collision) {
+				masks[square] = mask;
+				magics[square] = magic;
+				shifts[square] = 64 - bits;
+				tables[square] = table;
+
+				return;
+			}
+		}
+	}
+
+	private static long nextRandom() {
+		// xorshift64*, seeded with a constant so the tables are identical on every run
+		seed ^= seed >>> 12;
+		seed ^= seed << 25;
+		seed ^= seed >>> 27;
+
+		return seed * 0x2545F4914F6CDD1DL;
+	}
+
+}
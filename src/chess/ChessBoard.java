@@ -0,0 +1,202 @@
+package chess;
+
+import boardgame.Board;
+import boardgame.BoardException;
+import boardgame.Piece;
+import boardgame.Position;
+
+public class ChessBoard extends Board {
+	private static final int NO_SQUARE = 64;
+
+	private long[][] pieceBitboards = new long[Color.values().length][PieceType.values().length];
+	private long[] colorOccupancy = new long[Color.values().length];
+	private long occupancy;
+	private long zobristKey;
+	private Position[] positions = new Position[64];
+
+	// Piece lists: the squares of each color and type, and where each square sits in its list
+	private int[][] pieceSquares = new int[Color.values().length * PieceType.values().length][64];
+	private int[] pieceCounts = new int[Color.values().length * PieceType.values().length];
+	private int[] pieceIndexes = new int[64];
+	private int[] kingSquares = { NO_SQUARE, NO_SQUARE };
+
+	public ChessBoard() {
+		this(Layout.ARRAY);
+	}
+
+	public ChessBoard(Layout layout) {
+		super(8, 8, layout);
+
+		for (int square = 0; square < 64; square++) {
+			this.positions[square] = new Position(row(square), column(square));
+		}
+	}
+
+	public static int square(int row, int column) {
+		return (row << 3) | column;
+	}
+
+	public static int square(Position position) {
+		return square(position.getRow(), position.getColumn());
+	}
+
+	public static int row(int square) {
+		return square >>> 3;
+	}
+
+	public static int column(int square) {
+		return square & 7;
+	}
+
+	public long getBitboard(Color color, PieceType type) {
+		return this.pieceBitboards[color.ordinal()][type.ordinal()];
+	}
+
+	public long getOccupancy(Color color) {
+		return this.colorOccupancy[color.ordinal()];
+	}
+
+	public long getOccupancy() {
+		return occupancy;
+	}
+
+	public long getZobristKey() {
+		return zobristKey;
+	}
+
+	public long getSliders(Color color) {
+		long[] bitboards = this.pieceBitboards[color.ordinal()];
+
+		return bitboards[PieceType.BISHOP.ordinal()] | bitboards[PieceType.ROOK.ordinal()]
+				| bitboards[PieceType.QUEEN.ordinal()];
+	}
+
+	public int getPieceCount(Color color, PieceType type) {
+		return this.pieceCounts[listIndex(color, type)];
+	}
+
+	public int getPieceSquare(Color color, PieceType type, int index) {
+		return this.pieceSquares[listIndex(color, type)][index];
+	}
+
+	private static int listIndex(Color color, PieceType type) {
+		return color.ordinal() * PieceType.values().length + type.ordinal();
+	}
+
+	public int kingSquare(Color color) {
+		return this.kingSquares[color.ordinal()];
+	}
+
+	public long attackersTo(int square, Color color, long occupancy) {
+		long[] bitboards = this.pieceBitboards[color.ordinal()];
+		Color opponent = (color == Color.WHITE) ? Color.BLACK : Color.WHITE;
+
+		return (Attacks.pawnAttacks(opponent, square) & bitboards[PieceType.PAWN.ordinal()])
+				| (Attacks.knightAttacks(square) & bitboards[PieceType.KNIGHT.ordinal()])
+				| (Attacks.kingAttacks(square) & bitboards[PieceType.KING.ordinal()])
+				| (Attacks.bishopAttacks(square, occupancy)
+						& (bitboards[PieceType.BISHOP.ordinal()] | bitboards[PieceType.QUEEN.ordinal()]))
+				| (Attacks.rookAttacks(square, occupancy)
+						& (bitboards[PieceType.ROOK.ordinal()] | bitboards[PieceType.QUEEN.ordinal()]));
+	}
+
+	public boolean isSquareAttacked(int square, Color color) {
+		return attackersTo(square, color, this.occupancy) != 0;
+	}
+
+	public long pinnedPieces(Color color) {
+		Color opponent = (color == Color.WHITE) ? Color.BLACK : Color.WHITE;
+		int king = kingSquare(color);
+		long queens = getBitboard(opponent, PieceType.QUEEN);
+		long snipers = (Attacks.rookAttacks(king, 0L) & (getBitboard(opponent, PieceType.ROOK) | queens))
+				| (Attacks.bishopAttacks(king, 0L) & (getBitboard(opponent, PieceType.BISHOP) | queens));
+		long pinned = 0L;
+
+		for (; snipers != 0; snipers &= snipers - 1) {
+			long blockers = Attacks.between(king, Long.numberOfTrailingZeros(snipers)) & this.occupancy;
+
+			if (Long.bitCount(blockers) == 1) {
+				pinned |= blockers & getOccupancy(color);
+			}
+		}
+
+		return pinned;
+	}
+
+	// The interned ChessPosition, the board's own Position objects stay inside since anyone could move them
+	public ChessPosition position(int square) {
+		return ChessPosition.valueOf(square);
+	}
+
+	public ChessPiece piece(int square) {
+		return (ChessPiece) this.piece(row(square), column(square));
+	}
+
+	public void placePiece(ChessPiece piece, int square) {
+		this.placePiece(piece, this.positions[square]);
+	}
+
+	public ChessPiece removePiece(int square) {
+		return (ChessPiece) this.removePiece(this.positions[square]);
+	}
+
+	@Override
+	public void placePiece(Piece piece, Position position) {
+		super.placePiece(piece, position);
+
+		ChessPiece chessPiece = (ChessPiece) piece;
+		int square = square(position);
+		long bit = 1L << square;
+		int list = listIndex(chessPiece.getColor(), chessPiece.getType());
+
+		this.pieceBitboards[chessPiece.getColor().ordinal()][chessPiece.getType().ordinal()] |= bit;
+		this.colorOccupancy[chessPiece.getColor().ordinal()] |= bit;
+		this.occupancy |= bit;
+		this.zobristKey ^= Zobrist.piece(chessPiece.getColor(), chessPiece.getType(), square);
+		this.pieceIndexes[square] = this.pieceCounts[list];
+		this.pieceSquares[list][this.pieceCounts[list]++] = square;
+
+		if (chessPiece.getType() == PieceType.KING) {
+			this.kingSquares[chessPiece.getColor().ordinal()] = square;
+		}
+	}
+
+	@Override
+	public Piece removePiece(Position position) {
+		ChessPiece chessPiece = (ChessPiece) super.removePiece(position);
+
+		if (chessPiece != null) {
+			int square = square(position);
+			long bit = ~(1L << square);
+			int list = listIndex(chessPiece.getColor(), chessPiece.getType());
+			int[] squares = this.pieceSquares[list];
+
+			this.pieceBitboards[chessPiece.getColor().ordinal()][chessPiece.getType().ordinal()] &= bit;
+			this.colorOccupancy[chessPiece.getColor().ordinal()] &= bit;
+			this.occupancy &= bit;
+			this.zobristKey ^= Zobrist.piece(chessPiece.getColor(), chessPiece.getType(), square);
+
+			// The last square of the list fills the hole, so the list stays packed
+			int last = squares[--this.pieceCounts[list]];
+
+			squares[this.pieceIndexes[square]] = last;
+			this.pieceIndexes[last] = this.pieceIndexes[square];
+
+			if (chessPiece.getType() == PieceType.KING && this.kingSquares[chessPiece.getColor().ordinal()] == square) {
+				this.kingSquares[chessPiece.getColor().ordinal()] = NO_SQUARE;
+			}
+		}
+
+		return chessPiece;
+	}
+
+	@Override
+	public boolean thereIsAPiece(Position position) {
+		if (!this.positionExists(position)) {
+			throw new BoardException("Position not on the board!");
+		}
+
+		return (this.occupancy & (1L << square(position))) != 0;
+	}
+
+}
@@ -1,12 +1,13 @@
 package chess;
 
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import boardgame.Board;
-import boardgame.Piece;
-import boardgame.Position;
+
+import chess.metrics.Metrics;
 import chess.pieces.Bishop;
 import chess.pieces.King;
 import chess.pieces.Knight;
@@ -15,27 +16,150 @@ import chess.pieces.Queen;
 import chess.pieces.Rook;
 
 public class ChessMatch {
+	public static final String START_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+	public static final int MAX_MOVES = 256;
+
+	// Undo stacks start this deep and double as needed, most live games never need more
+	private static final int INITIAL_PLIES = 32;
+	private static final int SPARES = 16;
+
+	public static final int WHITE_KINGSIDE = 1;
+	public static final int WHITE_QUEENSIDE = 2;
+	public static final int BLACK_KINGSIDE = 4;
+	public static final int BLACK_QUEENSIDE = 8;
+
+	private static final int[] CASTLING_MASKS = new int[64];
+
+	static {
+		Arrays.fill(CASTLING_MASKS, WHITE_KINGSIDE | WHITE_QUEENSIDE | BLACK_KINGSIDE | BLACK_QUEENSIDE);
+
+		CASTLING_MASKS[ChessBoard.square(0, 0)] &= ~BLACK_QUEENSIDE;
+		CASTLING_MASKS[ChessBoard.square(0, 4)] &= ~(BLACK_KINGSIDE | BLACK_QUEENSIDE);
+		CASTLING_MASKS[ChessBoard.square(0, 7)] &= ~BLACK_KINGSIDE;
+		CASTLING_MASKS[ChessBoard.square(7, 0)] &= ~WHITE_QUEENSIDE;
+		CASTLING_MASKS[ChessBoard.square(7, 4)] &= ~(WHITE_KINGSIDE | WHITE_QUEENSIDE);
+		CASTLING_MASKS[ChessBoard.square(7, 7)] &= ~WHITE_KINGSIDE;
+	}
+
 	private int turn;
 	private Color currentPlayer;
-	private Board board;
+	private ChessBoard board;
 	private boolean check;
 	private boolean checkMate;
-	private ChessPiece enPassantVulnerable;
+	private boolean stalemate;
 	private ChessPiece promoted;
-	private List<Piece> piecesOnTheBoard = new ArrayList<>();
-	private List<Piece> capturedPieces = new ArrayList<>();
+	private int[] moveBuffer = new int[MAX_MOVES];
+	private long checkers;
+	private long pinned;
+	private int castlingRights;
+	private int enPassantSquare = -1;
+	private int halfmoveClock;
+
+	// Plies played before the position was loaded and the keys of the positions they went through, oldest first,
+	// set by resume: counted by getPly and searched by isRepetition, but never unmade
+	private static final long[] NO_KEYS = new long[0];
+	private int priorPlies;
+	private long[] priorKeys = NO_KEYS;
+
+	// Undo stack, one slot per ply made through makeMove
+	private int ply;
+	private int[] undoMoves = new int[INITIAL_PLIES];
+	private ChessPiece[] undoCaptured = new ChessPiece[INITIAL_PLIES];
+	private ChessPiece[] undoPromotedPawns = new ChessPiece[INITIAL_PLIES];
+	private int[] undoCastlingRights = new int[INITIAL_PLIES];
+	private int[] undoEnPassantSquares = new int[INITIAL_PLIES];
+	private int[] undoHalfmoveClocks = new int[INITIAL_PLIES];
+	private long[] undoCheckers = new long[INITIAL_PLIES];
+	private long[] undoPinned = new long[INITIAL_PLIES];
+	private long[] undoHashes = new long[INITIAL_PLIES];
+	private ChessPiece[][] promotionPieces = new ChessPiece[INITIAL_PLIES][];
+
+	// Not carried over by copy, searches play their moves through makeMove and never reach them anyway
+	private List<MoveListener> listeners = new CopyOnWriteArrayList<>();
+
+	// Allocated by the first clear() that has pieces to keep
+	private ChessPiece[][] spares = new ChessPiece[Color.values().length * PieceType.values().length][];
+	private int[] spareCounts = new int[Color.values().length * PieceType.values().length];
 
 	public ChessMatch() {
-		this.board = new Board(8, 8);
+		this(Board.Layout.ARRAY);
+	}
+
+	// The layout only changes how the board stores its ChessPiece objects, the bitboards are always there
+	public ChessMatch(Board.Layout layout) {
+		this.board = new ChessBoard(layout);
 		this.turn = 1;
 		this.currentPlayer = Color.WHITE;
+		this.castlingRights = WHITE_KINGSIDE | WHITE_QUEENSIDE | BLACK_KINGSIDE | BLACK_QUEENSIDE;
 		this.initialSetup();
+		this.updateCheckInfo(this.currentPlayer);
+	}
+
+	public ChessMatch(CharSequence fen) {
+		this(fen, Board.Layout.ARRAY);
+	}
+
+	public ChessMatch(CharSequence fen, Board.Layout layout) {
+		this.board = new ChessBoard(layout);
+		this.loadFen(fen);
+	}
+
+	private ChessMatch(ChessMatch other) {
+		this.board = new ChessBoard(other.board.getLayout());
+
+		for (long occupied = other.board.getOccupancy(); occupied != 0; occupied &= occupied - 1) {
+			int square = Long.numberOfTrailingZeros(occupied);
+
+			this.board.placePiece(copyPiece(other.board.piece(square)), square);
+		}
+
+		this.turn = other.turn;
+		this.currentPlayer = other.currentPlayer;
+		this.check = other.check;
+		this.checkMate = other.checkMate;
+		this.stalemate = other.stalemate;
+		this.checkers = other.checkers;
+		this.pinned = other.pinned;
+		this.castlingRights = other.castlingRights;
+		this.enPassantSquare = other.enPassantSquare;
+		this.halfmoveClock = other.halfmoveClock;
+		this.ply = other.ply;
+		this.priorPlies = other.priorPlies;
+		this.priorKeys = other.priorKeys;
+
+		if (other.promoted != null) {
+			this.promoted = this.board.piece(other.promoted.getSquare());
+		}
+
+		int capacity = other.undoMoves.length;
+
+		this.undoMoves = Arrays.copyOf(other.undoMoves, capacity);
+		this.undoCastlingRights = Arrays.copyOf(other.undoCastlingRights, capacity);
+		this.undoEnPassantSquares = Arrays.copyOf(other.undoEnPassantSquares, capacity);
+		this.undoHalfmoveClocks = Arrays.copyOf(other.undoHalfmoveClocks, capacity);
+		this.undoCheckers = Arrays.copyOf(other.undoCheckers, capacity);
+		this.undoPinned = Arrays.copyOf(other.undoPinned, capacity);
+		this.undoHashes = Arrays.copyOf(other.undoHashes, capacity);
+		this.undoCaptured = new ChessPiece[capacity];
+		this.undoPromotedPawns = new ChessPiece[capacity];
+		this.promotionPieces = new ChessPiece[capacity][];
+
+		// Pieces off the board are only needed to take back the moves already made
+		for (int i = 0; i < this.ply; i++) {
+			this.undoCaptured[i] = copyPiece(other.undoCaptured[i]);
+			this.undoPromotedPawns[i] = copyPiece(other.undoPromotedPawns[i]);
+		}
 	}
 
 	public int getTurn() {
 		return turn;
 	}
 
+	public ChessBoard getBoard() {
+		return board;
+	}
+
 	public boolean isCheck() {
 		return check;
 	}
@@ -44,18 +168,144 @@ public class ChessMatch {
 		return checkMate;
 	}
 
+	public boolean isStalemate() {
+		return stalemate;
+	}
+
+	public boolean isGameOver() {
+		return this.checkMate || this.stalemate;
+	}
+
 	public Color getCurrentPlayer() {
 		return currentPlayer;
 	}
 
+	// Deep copy for another thread: every piece is recreated on the copy's own board and match
+	public ChessMatch copy() {
+		return new ChessMatch(this);
+	}
+
+	public Color getWinner() {
+		return this.checkMate ? opponent(this.currentPlayer) : null;
+	}
+
 	public ChessPiece getEnPassantVulnerable() {
-		return enPassantVulnerable;
+		if (this.enPassantSquare < 0) {
+			return null;
+		}
+
+		return this.board.piece(ChessBoard.row(this.enPassantSquare) == 2 ? this.enPassantSquare + 8
+				: this.enPassantSquare - 8);
+	}
+
+	public int getCastlingRights() {
+		return castlingRights;
+	}
+
+	public int getEnPassantSquare() {
+		return enPassantSquare;
+	}
+
+	public int getHalfmoveClock() {
+		return halfmoveClock;
+	}
+
+	// Counting the plies before a resume
+	public int getPly() {
+		return priorPlies + ply;
 	}
 
 	public ChessPiece getPromoted() {
 		return promoted;
 	}
 
+	public void addMoveListener(MoveListener listener) {
+		this.listeners.add(listener);
+	}
+
+	public void removeMoveListener(MoveListener listener) {
+		this.listeners.remove(listener);
+	}
+
+	public List<MoveListener> getMoveListeners() {
+		return Collections.unmodifiableList(listeners);
+	}
+
+	private void fireMoveMade(int move, Color player, ChessPiece captured, boolean amended) {
+		if (this.listeners.isEmpty()) {
+			return;
+		}
+
+		MoveEvent event = new MoveEvent(this, move, player, captured, amended);
+
+		for (MoveListener listener : this.listeners) {
+			listener.moveMade(event);
+		}
+	}
+
+	public long getZobristKey() {
+		long key = this.board.getZobristKey() ^ Zobrist.castling(this.castlingRights);
+
+		if (this.currentPlayer == Color.BLACK) {
+			key ^= Zobrist.blackToMove();
+		}
+
+		// Only an en passant square that can actually be captured makes the position different
+		if (this.enPassantSquare >= 0 && (Attacks.pawnAttacks(opponent(this.currentPlayer), this.enPassantSquare)
+				& this.board.getBitboard(this.currentPlayer, PieceType.PAWN)) != 0) {
+			key ^= Zobrist.enPassantFile(ChessBoard.column(this.enPassantSquare));
+		}
+
+		return key;
+	}
+
+	public boolean isRepetition() {
+		long key = getZobristKey();
+
+		// Positions before the last capture or pawn move can never repeat
+		int oldest = Math.max(this.ply - this.halfmoveClock, -this.priorKeys.length);
+
+		for (int i = this.ply - 2; i >= oldest; i -= 2) {
+			if (historyKey(i) == key) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	// The keys isRepetition looks at, oldest first: what a match reloaded from a bare position needs to carry on
+	public long[] getRepetitionKeys() {
+		int count = Math.min(this.halfmoveClock, this.ply + this.priorKeys.length);
+		long[] keys = new long[count];
+
+		for (int i = 0; i < count; i++) {
+			keys[i] = historyKey(this.ply - count + i);
+		}
+
+		return keys;
+	}
+
+	// Right after the position of a saved game was loaded: plies is what getPly returned and keys what
+	// getRepetitionKeys returned when it was saved
+	public void resume(int plies, long[] keys) {
+		this.priorPlies = plies;
+		this.priorKeys = keys;
+	}
+
+	// The key of the position at a ply, negative going back before a resume
+	private long historyKey(int ply) {
+		return (ply >= 0) ? this.undoHashes[ply] : this.priorKeys[this.priorKeys.length + ply];
+	}
+
+	public long getCheckers() {
+		return checkers;
+	}
+
+	public long getPinnedPieces() {
+		return pinned;
+	}
+
 	private void initialSetup() {
 		// Piece white
 		placeNewPiece('a', 1, new Rook(this.board, Color.WHITE));
@@ -97,68 +347,173 @@ public class ChessMatch {
 	public ChessPiece[][] getPieces() {
 		ChessPiece[][] mat = new ChessPiece[this.board.getRows()][this.board.getColumns()];
 
-		for (int l = 0; l < this.board.getRows(); l++) {
-			for (int c = 0; c < this.board.getColumns(); c++) {
-				mat[l][c] = (ChessPiece) this.board.piece(l, c);
-			}
+		for (long occupied = this.board.getOccupancy(); occupied != 0; occupied &= occupied - 1) {
+			int square = Long.numberOfTrailingZeros(occupied);
+
+			mat[ChessBoard.row(square)][ChessBoard.column(square)] = this.board.piece(square);
 		}
 
 		return mat;
 	}
 
+	public int generateMoves(int[] moves) {
+		return generateMoves(moves, this.currentPlayer);
+	}
+
+	public int generateLegalMoves(int[] moves) {
+		int count = generateMoves(moves, this.currentPlayer);
+		int legal = 0;
+
+		for (int i = 0; i < count; i++) {
+			if (isLegal(moves[i], this.currentPlayer)) {
+				moves[legal++] = moves[i];
+			}
+		}
+
+		return legal;
+	}
+
+	// Stops at the first legal move, usually one of the first pieces looked at
+	public boolean hasAnyLegalMove() {
+		Color color = this.currentPlayer;
+		Color opponent = opponent(color);
+		int king = this.board.kingSquare(color);
+		long own = this.board.getOccupancy(color);
+		long occupancy = this.board.getOccupancy() ^ (1L << king);
+
+		// Castling is never the only legal move, the king can always take the first step of it instead
+		for (long targets = Attacks.kingAttacks(king) & ~own; targets != 0; targets &= targets - 1) {
+			if (this.board.attackersTo(Long.numberOfTrailingZeros(targets), opponent, occupancy) == 0) {
+				return true;
+			}
+		}
+
+		// Only the king can answer a double check
+		if (Long.bitCount(this.checkers) > 1) {
+			return false;
+		}
+
+		for (long pieces = own ^ (1L << king); pieces != 0; pieces &= pieces - 1) {
+			int square = Long.numberOfTrailingZeros(pieces);
+			ChessPiece piece = this.board.piece(square);
+
+			// Out of check a free piece can make any of its moves, en passant aside
+			if (this.checkers == 0 && ((this.pinned >>> square) & 1L) == 0 && piece.getType() != PieceType.PAWN) {
+				if (piece.targets() != 0) {
+					return true;
+				}
+
+				continue;
+			}
+
+			int count = piece.generateMoves(this.moveBuffer, 0);
+
+			for (int i = 0; i < count; i++) {
+				if (isLegal(this.moveBuffer[i], color)) {
+					return true;
+				}
+			}
+		}
+
+		return false;
+	}
+
+	private int generateMoves(int[] moves, Color color) {
+		int count = 0;
+
+		for (long pieces = this.board.getOccupancy(color); pieces != 0; pieces &= pieces - 1) {
+			count = this.board.piece(Long.numberOfTrailingZeros(pieces)).generateMoves(moves, count);
+		}
+
+		return count;
+	}
+
 	public boolean[][] possibleMoves(ChessPosition sourcePosition) {
-		Position position = sourcePosition.toPosition();
+		return possibleMoves(sourcePosition.getSquare());
+	}
+
+	public boolean[][] possibleMoves(int source) {
+		validateSourcePosition(source);
 
-		validateSourcePosition(position);
+		ChessPiece piece = this.board.piece(source);
+		long start = Metrics.ENABLED ? System.nanoTime() : 0L;
+		boolean[][] possibleMoves = piece.possibleMoves();
 
-		return this.board.piece(position).possibleMoves();
+		if (Metrics.ENABLED) {
+			Metrics.record(Metrics.possibleMoves(piece.getType()), start);
+		}
+
+		return possibleMoves;
+	}
+
+	public long possibleTargets(int source) {
+		validateSourcePosition(source);
+
+		ChessPiece piece = this.board.piece(source);
+		long start = Metrics.ENABLED ? System.nanoTime() : 0L;
+		long targets = piece.targets();
+
+		if (Metrics.ENABLED) {
+			Metrics.record(Metrics.possibleMoves(piece.getType()), start);
+		}
+
+		return targets;
 	}
 
 	public ChessPiece performChessMove(ChessPosition sourcePosition, ChessPosition targetPosition) {
-		Position source = sourcePosition.toPosition();
-		Position target = targetPosition.toPosition();
+		return performChessMove(sourcePosition.getSquare(), targetPosition.getSquare());
+	}
+
+	public ChessPiece performChessMove(int source, int target) {
+		long start = Metrics.ENABLED ? System.nanoTime() : 0L;
+		long phase = start;
 
 		validateSourcePosition(source);
 		validateTargetPosition(source, target);
 
-		Piece capturedPiece = makeMove(source, target);
+		int move = findMove(source, target);
+
+		if (Metrics.ENABLED) {
+			phase = Metrics.record(Metrics.VALIDATE, phase);
+		}
+
+		makeMove(move);
+
+		if (Metrics.ENABLED) {
+			phase = Metrics.record(Metrics.MAKE_MOVE, phase);
+		}
+
+		boolean selfCheck = testCheck(opponent(this.currentPlayer));
+
+		if (Metrics.ENABLED) {
+			phase = Metrics.record(Metrics.TEST_CHECK, phase);
+		}
 
-		if (testCheck(this.currentPlayer)) {
-			undoMove(source, target, capturedPiece);
+		if (selfCheck) {
+			unmakeMove();
 
 			throw new ChessException("You can't put yourself in check");
 		}
 
-		ChessPiece movedPiece = (ChessPiece) this.board.piece(target);
+		ChessPiece capturedPiece = this.undoCaptured[this.ply - 1];
 
 		// #Special move promotion
 		promoted = null;
 
-		if (movedPiece instanceof Pawn) {
-			if ((movedPiece.getColor() == Color.WHITE && target.getRow() == 0)
-					|| (movedPiece.getColor() == Color.BLACK && target.getRow() == 7)) {
-				promoted = (ChessPiece) this.board.piece(target);
-				promoted = replacePromotedPiece("Q");
-			}
+		if (Move.isPromotion(move)) {
+			promoted = this.board.piece(target);
 		}
 
-		this.check = (testCheck(opponent(this.currentPlayer))) ? true : false;
+		updateGameState();
 
-		if (testCheckMate(opponent(this.currentPlayer))) {
-			this.checkMate = true;
-		} else {
-			nextTurn();
+		if (Metrics.ENABLED) {
+			Metrics.record(Metrics.GAME_STATE, phase);
+			Metrics.record(Metrics.PERFORM_MOVE, start);
 		}
 
-		// #Special move en passant
-		if (movedPiece instanceof Pawn
-				&& (target.getRow() == source.getRow() - 2 || target.getRow() == source.getRow() + 2)) {
-			enPassantVulnerable = movedPiece;
-		} else {
-			enPassantVulnerable = null;
-		}
+		fireMoveMade(move, opponent(this.currentPlayer), capturedPiece, false);
 
-		return (ChessPiece) capturedPiece;
+		return capturedPiece;
 	}
 
 	public ChessPiece replacePromotedPiece(String type) {
@@ -170,15 +525,27 @@ public class ChessMatch {
 			return promoted;
 		}
 
-		Position pos = promoted.getChessPosition().toPosition();
-		Piece p = board.removePiece(pos);
+		long start = Metrics.ENABLED ? System.nanoTime() : 0L;
+		int square = promoted.getSquare();
+		ChessPiece newPiece = newPiece(type, promoted.getColor());
 
-		piecesOnTheBoard.remove(p);
+		this.board.removePiece(square);
+		this.board.placePiece(newPiece, square);
 
-		ChessPiece newPiece = newPiece(type, promoted.getColor());
+		// An under-promotion can give a different check, or none, and turn a stalemate into a game
+		updateCheckInfo(this.currentPlayer);
+		updateGameState();
+
+		if (Metrics.ENABLED) {
+			Metrics.record(Metrics.PROMOTION, start);
+		}
+
+		if (newPiece.getType() != promoted.getType()) {
+			int move = this.undoMoves[this.ply - 1];
 
-		this.board.placePiece(newPiece, pos);
-		piecesOnTheBoard.add(newPiece);
+			fireMoveMade(Move.encode(Move.from(move), square, Move.flags(move) & ~Move.PROMOTION, newPiece.getType()),
+					newPiece.getColor(), this.undoCaptured[this.ply - 1], true);
+		}
 
 		return newPiece;
 	}
@@ -199,209 +566,719 @@ public class ChessMatch {
 		return new Rook(board, color);
 	}
 
-	private Piece makeMove(Position source, Position target) {
-		ChessPiece p = (ChessPiece) this.board.removePiece(source);
+	private ChessPiece newPiece(PieceType type, Color color) {
+		switch (type) {
+		case PAWN:
+			return new Pawn(board, color, this);
+		case KING:
+			return new King(board, color, this);
+		case BISHOP:
+			return new Bishop(board, color);
+		case KNIGHT:
+			return new Knight(board, color);
+		case ROOK:
+			return new Rook(board, color);
+		default:
+			return new Queen(board, color);
+		}
+	}
+
+	private int findMove(int source, int target) {
+		int count = this.board.piece(source).generateMoves(this.moveBuffer, 0);
 
-		p.increaseMoveCount();
+		// Promotions are generated queen first, the player can still pick another piece afterwards
+		for (int i = 0; i < count; i++) {
+			if (Move.to(this.moveBuffer[i]) == target) {
+				return this.moveBuffer[i];
+			}
+		}
 
-		Piece capturedPiece = this.board.removePiece(target);
+		throw new ChessException("The chosen piece can't move to target position");
+	}
 
-		this.board.placePiece(p, target);
+	// Move.NONE unless the side to move has this move, promotion given as the PieceType ordinal or 0
+	int findLegalMove(int source, int target, int promotion) {
+		ChessPiece piece = this.board.piece(source);
 
-		if (capturedPiece != null) {
-			piecesOnTheBoard.remove(capturedPiece);
-			capturedPieces.add(capturedPiece);
+		if (piece == null || piece.getColor() != this.currentPlayer) {
+			return Move.NONE;
 		}
 
-		// #Special move castling kingside rook
-		if (p instanceof King && target.getColumn() == source.getColumn() + 2) {
-			Position sourceTower = new Position(source.getRow(), source.getColumn() + 3);
-			Position targetTower = new Position(source.getRow(), source.getColumn() + 1);
-			ChessPiece rook = (ChessPiece) this.board.removePiece(sourceTower);
+		int count = piece.generateMoves(this.moveBuffer, 0);
 
-			this.board.placePiece(rook, targetTower);
+		for (int i = 0; i < count; i++) {
+			int move = this.moveBuffer[i];
 
-			rook.increaseMoveCount();
+			if (Move.to(move) == target && (Move.isPromotion(move) ? Move.promotion(move).ordinal() : 0) == promotion
+					&& isLegal(move, this.currentPlayer)) {
+				return move;
+			}
 		}
 
-		// #Special move castling queenside rook
-		if (p instanceof King && target.getColumn() == source.getColumn() - 2) {
-			Position sourceTower = new Position(source.getRow(), source.getColumn() - 4);
-			Position targetTower = new Position(source.getRow(), source.getColumn() - 1);
-			ChessPiece rook = (ChessPiece) this.board.removePiece(sourceTower);
+		return Move.NONE;
+	}
 
-			this.board.placePiece(rook, targetTower);
+	public int parseSan(CharSequence san) {
+		return parseSan(san, 0, san.length());
+	}
 
-			rook.increaseMoveCount();
+	// Resolves a SAN move such as "Nbd7", "exd6", "e8=Q+" or "O-O" against the legal moves of the side to move
+	public int parseSan(CharSequence san, int start, int end) {
+		// Check, mate and annotation suffixes carry no information for the move itself
+		while (end > start && "+#!?".indexOf(san.charAt(end - 1)) >= 0) {
+			end--;
 		}
 
-		// #Special move en passant
-		if (p instanceof Pawn) {
-			if (source.getColumn() != target.getColumn() && capturedPiece == null) {
-				Position pawnPosition;
-
-				if (p.getColor() == Color.WHITE) {
-					pawnPosition = new Position(target.getRow() + 1, target.getColumn());
-				} else {
-					pawnPosition = new Position(target.getRow() - 1, target.getColumn());
+		if (end - start < 2) {
+			throw invalidSan(san, start, end);
+		}
+
+		char first = san.charAt(start);
+
+		if (first == 'O' || first == '0') {
+			boolean queenside = end - start == 5;
+
+			if (end - start != 3 && !queenside) {
+				throw invalidSan(san, start, end);
+			}
+
+			int count = this.board.piece(this.board.kingSquare(this.currentPlayer)).generateMoves(this.moveBuffer, 0);
+
+			for (int i = 0; i < count; i++) {
+				int move = this.moveBuffer[i];
+
+				if (Move.isCastling(move) && (Move.to(move) < Move.from(move)) == queenside
+						&& isLegal(move, this.currentPlayer)) {
+					return move;
 				}
+			}
+
+			throw illegalSan(san, start, end);
+		}
+
+		PieceType type = PieceType.PAWN;
 
-				capturedPiece = this.board.removePiece(pawnPosition);
+		int index = start;
 
-				capturedPieces.add(capturedPiece);
-				piecesOnTheBoard.remove(capturedPiece);
+		if ("NBRQK".indexOf(first) >= 0) {
+			type = sanPieceType(first);
+			index++;
+		}
+
+		PieceType promotion = null;
+		int squareEnd = end;
+
+		if ("NBRQ".indexOf(san.charAt(squareEnd - 1)) >= 0) {
+			promotion = sanPieceType(san.charAt(squareEnd - 1));
+			squareEnd--;
+
+			if (san.charAt(squareEnd - 1) == '=') {
+				squareEnd--;
 			}
 		}
 
-		return capturedPiece;
+		if (squareEnd - index < 2 || san.charAt(squareEnd - 2) < 'a' || san.charAt(squareEnd - 2) > 'h'
+				|| san.charAt(squareEnd - 1) < '1' || san.charAt(squareEnd - 1) > '8') {
+			throw invalidSan(san, start, end);
+		}
+
+		int target = ChessBoard.square('8' - san.charAt(squareEnd - 1), san.charAt(squareEnd - 2) - 'a');
+		int fromColumn = -1;
+		int fromRow = -1;
+
+		for (int i = index; i < squareEnd - 2; i++) {
+			char c = san.charAt(i);
+
+			if (c >= 'a' && c <= 'h') {
+				fromColumn = c - 'a';
+			} else if (c >= '1' && c <= '8') {
+				fromRow = '8' - c;
+			} else if (c != 'x' && c != '-') {
+				throw invalidSan(san, start, end);
+			}
+		}
+
+		int found = Move.NONE;
+
+		// Only the pieces of the moving type are generated, not the whole position
+		for (long pieces = this.board.getBitboard(this.currentPlayer, type); pieces != 0; pieces &= pieces - 1) {
+			int source = Long.numberOfTrailingZeros(pieces);
+
+			if ((fromColumn >= 0 && ChessBoard.column(source) != fromColumn)
+					|| (fromRow >= 0 && ChessBoard.row(source) != fromRow)) {
+				continue;
+			}
+
+			int count = this.board.piece(source).generateMoves(this.moveBuffer, 0);
+
+			for (int i = 0; i < count; i++) {
+				int move = this.moveBuffer[i];
+
+				if (Move.to(move) != target || Move.isCastling(move)
+						|| (Move.isPromotion(move) ? Move.promotion(move) != promotion : promotion != null)
+						|| !isLegal(move, this.currentPlayer)) {
+					continue;
+				}
+
+				if (found != Move.NONE) {
+					throw new ChessException("Ambiguous move: " + san.subSequence(start, end));
+				}
+
+				found = move;
+			}
+		}
+
+		if (found == Move.NONE) {
+			throw illegalSan(san, start, end);
+		}
+
+		return found;
 	}
 
-	private void undoMove(Position source, Position target, Piece capturedPiece) {
-		ChessPiece p = (ChessPiece) this.board.removePiece(target);
+	private static PieceType sanPieceType(char c) {
+		switch (c) {
+		case 'N':
+			return PieceType.KNIGHT;
+		case 'B':
+			return PieceType.BISHOP;
+		case 'R':
+			return PieceType.ROOK;
+		case 'Q':
+			return PieceType.QUEEN;
+		default:
+			return PieceType.KING;
+		}
+	}
 
-		p.decreaseMoveCount();
-		this.board.placePiece(p, source);
+	private static ChessException invalidSan(CharSequence san, int start, int end) {
+		return new ChessException("Invalid move: " + san.subSequence(start, end));
+	}
 
-		if (capturedPiece != null) {
-			this.board.placePiece(capturedPiece, target);
+	private static ChessException illegalSan(CharSequence san, int start, int end) {
+		return new ChessException("Illegal move: " + san.subSequence(start, end));
+	}
 
-			this.capturedPieces.remove(capturedPiece);
+	private ChessPiece promotionPiece(PieceType type, Color color) {
+		if (this.promotionPieces[this.ply] == null) {
+			this.promotionPieces[this.ply] = new ChessPiece[Color.values().length * PieceType.values().length];
+		}
+
+		// A piece parked in this slot is only on the board while the move made at this ply is
+		int index = color.ordinal() * PieceType.values().length + type.ordinal();
+		ChessPiece piece = this.promotionPieces[this.ply][index];
 
-			this.piecesOnTheBoard.add(capturedPiece);
+		if (piece == null) {
+			piece = newPiece(type, color);
+			this.promotionPieces[this.ply][index] = piece;
 		}
 
-		// #Special move castling kingside rook
-		if (p instanceof King && target.getColumn() == source.getColumn() + 2) {
-			Position sourceTower = new Position(source.getRow(), source.getColumn() + 3);
-			Position targetTower = new Position(source.getRow(), source.getColumn() + 1);
-			ChessPiece rook = (ChessPiece) this.board.removePiece(targetTower);
+		return piece;
+	}
 
-			this.board.placePiece(rook, sourceTower);
+	public void makeMove(int move) {
+		if (this.ply == this.undoMoves.length) {
+			growUndoStack();
+		}
 
-			rook.decreaseMoveCount();
+		int source = Move.from(move);
+		int target = Move.to(move);
+		Color color = this.currentPlayer;
+		ChessPiece capturedPiece = null;
+
+		this.undoMoves[this.ply] = move;
+		this.undoCastlingRights[this.ply] = this.castlingRights;
+		this.undoEnPassantSquares[this.ply] = this.enPassantSquare;
+		this.undoHalfmoveClocks[this.ply] = this.halfmoveClock;
+		this.undoCheckers[this.ply] = this.checkers;
+		this.undoPinned[this.ply] = this.pinned;
+		this.undoHashes[this.ply] = getZobristKey();
+
+		ChessPiece p = this.board.removePiece(source);
+
+		// #Special move en passant
+		if (Move.isEnPassant(move)) {
+			capturedPiece = this.board.removePiece((color == Color.WHITE) ? target + 8 : target - 8);
+		} else if (Move.isCapture(move)) {
+			capturedPiece = this.board.removePiece(target);
 		}
 
-		// #Special move castling queenside rook
-		if (p instanceof King && target.getColumn() == source.getColumn() - 2) {
-			Position sourceTower = new Position(source.getRow(), source.getColumn() - 4);
-			Position targetTower = new Position(source.getRow(), source.getColumn() - 1);
-			ChessPiece rook = (ChessPiece) this.board.removePiece(targetTower);
+		this.halfmoveClock = (capturedPiece != null || p.getType() == PieceType.PAWN) ? 0 : this.halfmoveClock + 1;
 
-			this.board.placePiece(rook, sourceTower);
+		p.increaseMoveCount();
 
-			rook.decreaseMoveCount();
+		// #Special move promotion
+		if (Move.isPromotion(move)) {
+			this.undoPromotedPawns[this.ply] = p;
+			p = promotionPiece(Move.promotion(move), color);
+		}
+
+		this.board.placePiece(p, target);
+
+		// #Special move castling
+		if (Move.isCastling(move)) {
+			int rookSource = (target > source) ? source + 3 : source - 4;
+			int rookTarget = (target > source) ? source + 1 : source - 1;
+			ChessPiece rook = this.board.removePiece(rookSource);
+
+			this.board.placePiece(rook, rookTarget);
+
+			rook.increaseMoveCount();
+		}
+
+		this.castlingRights &= CASTLING_MASKS[source] & CASTLING_MASKS[target];
+		this.enPassantSquare = Move.isDoublePawnPush(move) ? (source + target) >>> 1 : -1;
+		this.undoCaptured[this.ply] = capturedPiece;
+		this.ply++;
+		this.turn++;
+		this.currentPlayer = opponent(color);
+
+		updateCheckInfo(this.currentPlayer);
+	}
+
+	public void unmakeMove() {
+		if (this.ply == 0) {
+			throw new IllegalStateException("There is no move to be undone");
+		}
+
+		this.ply--;
+		this.turn--;
+		this.currentPlayer = opponent(this.currentPlayer);
+
+		int move = this.undoMoves[this.ply];
+		int source = Move.from(move);
+		int target = Move.to(move);
+		ChessPiece p = this.board.removePiece(target);
+
+		// #Special move promotion
+		if (Move.isPromotion(move)) {
+			p = this.undoPromotedPawns[this.ply];
+			this.undoPromotedPawns[this.ply] = null;
 		}
 
+		p.decreaseMoveCount();
+		this.board.placePiece(p, source);
+
+		ChessPiece capturedPiece = this.undoCaptured[this.ply];
+
 		// #Special move en passant
-		if (p instanceof Pawn) {
-			if (source.getColumn() != target.getColumn() && capturedPiece == enPassantVulnerable) {
-				ChessPiece pawn = (ChessPiece) this.board.removePiece(target);
-				Position pawnPosition;
-
-				if (p.getColor() == Color.WHITE) {
-					pawnPosition = new Position(3, target.getColumn());
-				} else {
-					pawnPosition = new Position(4, target.getColumn());
-				}
+		if (Move.isEnPassant(move)) {
+			this.board.placePiece(capturedPiece, (this.currentPlayer == Color.WHITE) ? target + 8 : target - 8);
+		} else if (capturedPiece != null) {
+			this.board.placePiece(capturedPiece, target);
+		}
 
-				this.board.placePiece(pawn, pawnPosition);
-			}
+		this.undoCaptured[this.ply] = null;
+
+		// #Special move castling
+		if (Move.isCastling(move)) {
+			int rookSource = (target > source) ? source + 3 : source - 4;
+			int rookTarget = (target > source) ? source + 1 : source - 1;
+			ChessPiece rook = this.board.removePiece(rookTarget);
+
+			this.board.placePiece(rook, rookSource);
+
+			rook.decreaseMoveCount();
 		}
+
+		this.castlingRights = this.undoCastlingRights[this.ply];
+		this.enPassantSquare = this.undoEnPassantSquares[this.ply];
+		this.halfmoveClock = this.undoHalfmoveClocks[this.ply];
+		this.checkers = this.undoCheckers[this.ply];
+		this.pinned = this.undoPinned[this.ply];
 	}
 
-	private void validateSourcePosition(Position position) {
-		if (!this.board.thereIsAPiece(position)) {
+	private void growUndoStack() {
+		int capacity = this.undoMoves.length * 2;
+
+		this.undoMoves = Arrays.copyOf(this.undoMoves, capacity);
+		this.undoCaptured = Arrays.copyOf(this.undoCaptured, capacity);
+		this.undoPromotedPawns = Arrays.copyOf(this.undoPromotedPawns, capacity);
+		this.undoCastlingRights = Arrays.copyOf(this.undoCastlingRights, capacity);
+		this.undoEnPassantSquares = Arrays.copyOf(this.undoEnPassantSquares, capacity);
+		this.undoHalfmoveClocks = Arrays.copyOf(this.undoHalfmoveClocks, capacity);
+		this.undoCheckers = Arrays.copyOf(this.undoCheckers, capacity);
+		this.undoPinned = Arrays.copyOf(this.undoPinned, capacity);
+		this.undoHashes = Arrays.copyOf(this.undoHashes, capacity);
+		this.promotionPieces = Arrays.copyOf(this.promotionPieces, capacity);
+	}
+
+	private void validateSourcePosition(int source) {
+		ChessPiece piece = this.board.piece(source);
+
+		if (piece == null) {
 			throw new ChessException("There is no piece on source position!");
 		}
 
-		if (this.currentPlayer != ((ChessPiece) this.board.piece(position)).getColor()) {
+		if (this.currentPlayer != piece.getColor()) {
 			throw new ChessException("The chosen piece is not yours");
 		}
 
-		if (!this.board.piece(position).isThereAnyPossibleMove()) {
+		if (!piece.isThereAnyPossibleMove()) {
 			throw new ChessException("There is no possible moves for the chosen piece");
 		}
 	}
 
-	private void validateTargetPosition(Position source, Position target) {
-		if (!this.board.piece(source).possibleMove(target)) {
+	private void validateTargetPosition(int source, int target) {
+		if (((this.board.piece(source).targets() >>> target) & 1L) == 0) {
 			throw new ChessException("The chosen piece can't move to target position");
 		}
 	}
 
-	private void placeNewPiece(char column, int row, ChessPiece piece) {
-		this.board.placePiece(piece, new ChessPosition(column, row).toPosition());
+	public void loadFen(CharSequence fen) {
+		clear();
+
+		int length = fen.length();
+		int i = skipSpaces(fen, 0);
+		int row = 0;
+		int column = 0;
+
+		for (; i < length && fen.charAt(i) != ' '; i++) {
+			char c = fen.charAt(i);
+
+			if (c == '/') {
+				if (column != 8 || ++row > 7) {
+					throw invalidFen(fen);
+				}
+
+				column = 0;
+			} else if (c >= '1' && c <= '8') {
+				column += c - '0';
+			} else if (column < 8) {
+				loadPiece(fenColor(c), fenPieceType(c, fen), ChessBoard.square(row, column++));
+			} else {
+				throw invalidFen(fen);
+			}
+		}
+
+		if (row != 7 || column != 8) {
+			throw invalidFen(fen);
+		}
+
+		i = skipSpaces(fen, i);
+
+		if (i >= length || (fen.charAt(i) != 'w' && fen.charAt(i) != 'b')) {
+			throw invalidFen(fen);
+		}
+
+		Color player = (fen.charAt(i++) == 'w') ? Color.WHITE : Color.BLACK;
+		int rights = 0;
+		int enPassant = -1;
+
+		i = skipSpaces(fen, i);
+
+		for (; i < length && fen.charAt(i) != ' '; i++) {
+			switch (fen.charAt(i)) {
+			case 'K':
+				rights |= WHITE_KINGSIDE;
+				break;
+			case 'Q':
+				rights |= WHITE_QUEENSIDE;
+				break;
+			case 'k':
+				rights |= BLACK_KINGSIDE;
+				break;
+			case 'q':
+				rights |= BLACK_QUEENSIDE;
+				break;
+			case '-':
+				break;
+			default:
+				throw invalidFen(fen);
+			}
+		}
+
+		i = skipSpaces(fen, i);
+
+		if (i < length && fen.charAt(i) != '-') {
+			if (i + 1 >= length || fen.charAt(i) < 'a' || fen.charAt(i) > 'h' || fen.charAt(i + 1) < '1'
+					|| fen.charAt(i + 1) > '8') {
+				throw invalidFen(fen);
+			}
+
+			enPassant = ChessBoard.square('8' - fen.charAt(i + 1), fen.charAt(i) - 'a');
+			i += 2;
+		} else {
+			i++;
+		}
+
+		i = skipSpaces(fen, i);
+
+		int halfmove = 0;
+
+		for (; i < length && fen.charAt(i) >= '0' && fen.charAt(i) <= '9'; i++) {
+			halfmove = halfmove * 10 + (fen.charAt(i) - '0');
+		}
+
+		i = skipSpaces(fen, i);
+
+		int fullmove = 0;
+
+		for (; i < length && fen.charAt(i) >= '0' && fen.charAt(i) <= '9'; i++) {
+			fullmove = fullmove * 10 + (fen.charAt(i) - '0');
+		}
 
-		piecesOnTheBoard.add(piece);
+		if (!endLoad(player, rights, enPassant, halfmove, fullmove)) {
+			throw invalidFen(fen);
+		}
 	}
 
-	private void nextTurn() {
-		this.turn++;
+	// Bulk loading, shared by loadFen and the binary position codec: clear(), loadPiece() per piece, then endLoad()
+	void loadPiece(Color color, PieceType type, int square) {
+		int index = color.ordinal() * PieceType.values().length + type.ordinal();
 
-		this.currentPlayer = (this.currentPlayer == Color.WHITE) ? Color.BLACK : Color.WHITE;
+		// Pieces left over from the previous position are reused
+		if (this.spareCounts[index] > 0) {
+			this.board.placePiece(this.spares[index][--this.spareCounts[index]], square);
+		} else {
+			this.board.placePiece(newPiece(type, color), square);
+		}
 	}
 
-	private Color opponent(Color color) {
-		return (color == Color.WHITE) ? Color.BLACK : Color.WHITE;
+	boolean endLoad(Color player, int castlingRights, int enPassantSquare, int halfmoveClock, int fullmove) {
+		if (Long.bitCount(this.board.getBitboard(Color.WHITE, PieceType.KING)) != 1
+				|| Long.bitCount(this.board.getBitboard(Color.BLACK, PieceType.KING)) != 1) {
+			return false;
+		}
+
+		// The side that just moved cannot be left in check, the king would be taken next
+		if (this.board.isSquareAttacked(this.board.kingSquare(opponent(player)), player)) {
+			return false;
+		}
+
+		this.currentPlayer = player;
+		this.castlingRights = homeCastlingRights(castlingRights);
+		this.enPassantSquare = enPassantSquare;
+		this.halfmoveClock = halfmoveClock;
+		this.turn = 2 * (Math.max(fullmove, 1) - 1) + ((player == Color.WHITE) ? 1 : 2);
+		this.updateCheckInfo(player);
+		this.updateGameState();
+
+		return true;
+	}
+
+	// FENs in the wild often carry stale flags, a right only stands while its king and rook are on their home squares
+	private int homeCastlingRights(int rights) {
+		for (Color color : Color.values()) {
+			int row = (color == Color.WHITE) ? 7 : 0;
+			long king = this.board.getBitboard(color, PieceType.KING);
+			long rooks = this.board.getBitboard(color, PieceType.ROOK);
+
+			rights = dropUnlessHome(rights, king, ChessBoard.square(row, 4));
+			rights = dropUnlessHome(rights, rooks, ChessBoard.square(row, 0));
+			rights = dropUnlessHome(rights, rooks, ChessBoard.square(row, 7));
+		}
+
+		return rights;
+	}
+
+	private static int dropUnlessHome(int rights, long pieces, int square) {
+		return (((pieces >>> square) & 1L) != 0) ? rights : rights & CASTLING_MASKS[square];
+	}
+
+	public String toFen() {
+		StringBuilder sb = new StringBuilder(90);
+
+		appendFen(sb);
+
+		return sb.toString();
 	}
 
-	private ChessPiece king(Color color) {
-		List<Piece> listPieceOnTheBoard = piecesOnTheBoard.stream().filter(x -> ((ChessPiece) x).getColor() == color)
-				.collect(Collectors.toList());
+	public void appendFen(StringBuilder sb) {
+		for (int row = 0; row < 8; row++) {
+			int empty = 0;
 
-		for (Piece piece : listPieceOnTheBoard) {
-			if (piece instanceof King) {
-				return (ChessPiece) piece;
+			for (int column = 0; column < 8; column++) {
+				ChessPiece piece = this.board.piece(ChessBoard.square(row, column));
+
+				if (piece == null) {
+					empty++;
+					continue;
+				}
+
+				if (empty > 0) {
+					sb.append((char) ('0' + empty));
+					empty = 0;
+				}
+
+				char symbol = piece.toString().charAt(0);
+
+				sb.append((piece.getColor() == Color.WHITE) ? symbol : Character.toLowerCase(symbol));
+			}
+
+			if (empty > 0) {
+				sb.append((char) ('0' + empty));
+			}
+
+			if (row < 7) {
+				sb.append('/');
+			}
+		}
+
+		sb.append((this.currentPlayer == Color.WHITE) ? " w " : " b ");
+
+		if (this.castlingRights == 0) {
+			sb.append('-');
+		} else {
+			if ((this.castlingRights & WHITE_KINGSIDE) != 0) {
+				sb.append('K');
+			}
+
+			if ((this.castlingRights & WHITE_QUEENSIDE) != 0) {
+				sb.append('Q');
+			}
+
+			if ((this.castlingRights & BLACK_KINGSIDE) != 0) {
+				sb.append('k');
+			}
+
+			if ((this.castlingRights & BLACK_QUEENSIDE) != 0) {
+				sb.append('q');
 			}
 		}
 
-		throw new IllegalStateException("There is no " + color + " king on the board!");
+		sb.append(' ');
+
+		if (this.enPassantSquare < 0) {
+			sb.append('-');
+		} else {
+			sb.append((char) ('a' + ChessBoard.column(this.enPassantSquare)));
+			sb.append((char) ('8' - ChessBoard.row(this.enPassantSquare)));
+		}
+
+		sb.append(' ').append(this.halfmoveClock).append(' ').append((this.turn + 1) / 2);
 	}
 
-	private boolean testCheck(Color color) {
-		Position kingPosition = king(color).getChessPosition().toPosition();
-		List<Piece> opponentPieces = piecesOnTheBoard.stream()
-				.filter(x -> ((ChessPiece) x).getColor() == opponent(color)).collect(Collectors.toList());
+	void clear() {
+		for (long occupied = this.board.getOccupancy(); occupied != 0; occupied &= occupied - 1) {
+			ChessPiece piece = this.board.removePiece(Long.numberOfTrailingZeros(occupied));
+			int index = piece.getColor().ordinal() * PieceType.values().length + piece.getType().ordinal();
 
-		for (Piece piece : opponentPieces) {
-			boolean[][] mat = piece.possibleMoves();
+			if (this.spares[index] == null) {
+				this.spares[index] = new ChessPiece[SPARES];
+			}
 
-			if (mat[kingPosition.getRow()][kingPosition.getColumn()]) {
-				return true;
+			if (this.spareCounts[index] < SPARES) {
+				piece.setMoveCount(0);
+				this.spares[index][this.spareCounts[index]++] = piece;
 			}
 		}
 
-		return false;
+		Arrays.fill(this.undoCaptured, 0, this.ply, null);
+		Arrays.fill(this.undoPromotedPawns, 0, this.ply, null);
+		Arrays.fill(this.promotionPieces, null);
+
+		this.ply = 0;
+		this.priorPlies = 0;
+		this.priorKeys = NO_KEYS;
+		this.promoted = null;
+		this.check = false;
+		this.checkMate = false;
+		this.stalemate = false;
+		this.castlingRights = 0;
+		this.enPassantSquare = -1;
+		this.halfmoveClock = 0;
 	}
 
-	private boolean testCheckMate(Color color) {
-		if (!testCheck(color)) {
-			return false;
+	private static int skipSpaces(CharSequence fen, int i) {
+		while (i < fen.length() && fen.charAt(i) == ' ') {
+			i++;
 		}
 
-		List<Piece> list = piecesOnTheBoard.stream().filter(x -> ((ChessPiece) x).getColor() == color)
-				.collect(Collectors.toList());
+		return i;
+	}
 
-		for (Piece piece : list) {
-			boolean[][] mat = piece.possibleMoves();
+	private static ChessException invalidFen(CharSequence fen) {
+		return new ChessException("Invalid FEN: " + fen);
+	}
 
-			for (int l = 0; l < this.board.getRows(); l++) {
-				for (int c = 0; c < this.board.getColumns(); c++) {
-					if (mat[l][c]) {
-						Position source = ((ChessPiece) piece).getChessPosition().toPosition();
-						Position target = new Position(l, c);
-						Piece capturedPiece = makeMove(source, target);
-						boolean testCheck = testCheck(color);
-						undoMove(source, target, capturedPiece);
+	private static Color fenColor(char c) {
+		return Character.isUpperCase(c) ? Color.WHITE : Color.BLACK;
+	}
 
-						if (!testCheck) {
-							return false;
-						}
-					}
-				}
-			}
+	private static PieceType fenPieceType(char c, CharSequence fen) {
+		switch (Character.toUpperCase(c)) {
+		case 'P':
+			return PieceType.PAWN;
+		case 'N':
+			return PieceType.KNIGHT;
+		case 'B':
+			return PieceType.BISHOP;
+		case 'R':
+			return PieceType.ROOK;
+		case 'Q':
+			return PieceType.QUEEN;
+		case 'K':
+			return PieceType.KING;
+		default:
+			throw invalidFen(fen);
+		}
+	}
+
+	private ChessPiece copyPiece(ChessPiece piece) {
+		if (piece == null) {
+			return null;
 		}
 
-		return true;
+		ChessPiece copy = newPiece(piece.getType(), piece.getColor());
+
+		copy.setMoveCount(piece.getMoveCount());
+
+		return copy;
+	}
+
+	private void placeNewPiece(char column, int row, ChessPiece piece) {
+		this.board.placePiece(piece, ChessPosition.valueOf(column, row).getSquare());
+	}
+
+	private Color opponent(Color color) {
+		return (color == Color.WHITE) ? Color.BLACK : Color.WHITE;
+	}
+
+	private void updateCheckInfo(Color color) {
+		this.checkers = this.board.attackersTo(this.board.kingSquare(color), opponent(color), this.board.getOccupancy());
+		this.pinned = this.board.pinnedPieces(color);
+	}
+
+	private boolean isLegal(int move, Color color) {
+		int source = Move.from(move);
+		int target = Move.to(move);
+		int king = this.board.kingSquare(color);
+		long occupancy = this.board.getOccupancy() ^ (1L << source);
+
+		if (source == king) {
+			return this.board.attackersTo(target, opponent(color), occupancy) == 0;
+		}
+
+		// #Special move en passant
+		if (Move.isEnPassant(move)) {
+			int pawnSquare = (color == Color.WHITE) ? target + 8 : target - 8;
+
+			occupancy = (occupancy ^ (1L << pawnSquare)) | (1L << target);
+
+			return (this.board.attackersTo(king, opponent(color), occupancy) & ~(1L << pawnSquare)) == 0;
+		}
+
+		if (Long.bitCount(this.checkers) > 1) {
+			return false;
+		}
+
+		if (this.checkers != 0
+				&& ((this.checkers | Attacks.between(king, Long.numberOfTrailingZeros(this.checkers))) & (1L << target)) == 0) {
+			return false;
+		}
+
+		return (this.pinned & (1L << source)) == 0 || (Attacks.line(king, source) & (1L << target)) != 0;
+	}
+
+	private boolean testCheck(Color color) {
+		return this.board.isSquareAttacked(this.board.kingSquare(color), opponent(color));
+	}
+
+	private void updateGameState() {
+		boolean anyLegalMove = hasAnyLegalMove();
+
+		this.check = this.checkers != 0;
+		this.checkMate = this.check && !anyLegalMove;
+		this.stalemate = !this.check && !anyLegalMove;
 	}
 }
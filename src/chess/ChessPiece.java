@@ -5,6 +5,8 @@ import boardgame.Piece;
 import boardgame.Position;
 
 public abstract class ChessPiece extends Piece {
+	public static final int BLACK_CODE = 8;
+
 	private Color color;
 	private int moveCount;
 
@@ -17,6 +19,18 @@ public abstract class ChessPiece extends Piece {
 		return color;
 	}
 
+	public abstract PieceType getType();
+
+	// The type in the low three bits counting from 1, so a code is never EMPTY, and BLACK_CODE for black
+	public static byte code(Color color, PieceType type) {
+		return (byte) ((type.ordinal() + 1) | ((color == Color.BLACK) ? BLACK_CODE : 0));
+	}
+
+	@Override
+	public byte getCode() {
+		return code(this.color, getType());
+	}
+
 	public int getMoveCount() {
 		return moveCount;
 	}
@@ -29,8 +43,69 @@ public abstract class ChessPiece extends Piece {
 		this.moveCount--;
 	}
 
+	void setMoveCount(int moveCount) {
+		this.moveCount = moveCount;
+	}
+
 	public ChessPosition getChessPosition() {
-		return ChessPosition.fromPosition(position);
+		return ChessPosition.valueOf(getSquare());
+	}
+
+	public abstract long targets();
+
+	public int generateMoves(int[] moves, int count) {
+		return addMoves(moves, count, getSquare(), targets());
+	}
+
+	protected int addMoves(int[] moves, int count, int from, long targets) {
+		long opponents = getChessBoard().getOccupancy(opponent());
+
+		for (; targets != 0; targets &= targets - 1) {
+			int to = Long.numberOfTrailingZeros(targets);
+
+			moves[count++] = Move.encode(from, to, ((opponents >>> to) & 1L) != 0 ? Move.CAPTURE : Move.NONE);
+		}
+
+		return count;
+	}
+
+	@Override
+	public boolean[][] possibleMoves() {
+		return toMatrix(targets());
+	}
+
+	@Override
+	public boolean possibleMove(Position position) {
+		return ((targets() >>> ChessBoard.square(position)) & 1L) != 0;
+	}
+
+	@Override
+	public boolean isThereAnyPossibleMove() {
+		return targets() != 0;
+	}
+
+	protected Color opponent() {
+		return (this.color == Color.WHITE) ? Color.BLACK : Color.WHITE;
+	}
+
+	protected ChessBoard getChessBoard() {
+		return (ChessBoard) getBoard();
+	}
+
+	public int getSquare() {
+		return ChessBoard.square(position);
+	}
+
+	protected boolean[][] toMatrix(long targets) {
+		boolean[][] mat = new boolean[getBoard().getRows()][getBoard().getColumns()];
+
+		for (; targets != 0; targets &= targets - 1) {
+			int square = Long.numberOfTrailingZeros(targets);
+
+			mat[ChessBoard.row(square)][ChessBoard.column(square)] = true;
+		}
+
+		return mat;
 	}
 
 	protected boolean isThereOpponentPiece(Position position) {
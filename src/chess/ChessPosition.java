@@ -3,6 +3,14 @@ package chess;
 import boardgame.Position;
 
 public class ChessPosition {
+	private static final ChessPosition[] SQUARES = new ChessPosition[64];
+
+	static {
+		for (int square = 0; square < 64; square++) {
+			SQUARES[square] = new ChessPosition((char) ('a' + ChessBoard.column(square)), 8 - ChessBoard.row(square));
+		}
+	}
+
 	private char column;
 	private int row;
 
@@ -23,12 +31,49 @@ public class ChessPosition {
 		return row;
 	}
 
+	public int getSquare() {
+		return ChessBoard.square(8 - this.row, this.column - 'a');
+	}
+
+	// Shared immutable instances, one per square, for callers that convert coordinates in a loop
+	public static ChessPosition valueOf(char column, int row) {
+		if (column < 'a' || column > 'h' || row < 1 || row > 8) {
+			throw new ChessException("Error instantiating ChessPosition. Valid values are from a1 to h8.");
+		}
+
+		return SQUARES[ChessBoard.square(8 - row, column - 'a')];
+	}
+
+	public static ChessPosition valueOf(int square) {
+		return SQUARES[square];
+	}
+
 	protected Position toPosition() {
 		return new Position(8 - this.row, this.column - 'a');
 	}
 
 	protected static ChessPosition fromPosition(Position position) {
-		return new ChessPosition((char) ('a' + position.getColumn()), 8 - position.getRow());
+		return SQUARES[ChessBoard.square(position)];
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+
+		if (!(obj instanceof ChessPosition)) {
+			return false;
+		}
+
+		ChessPosition other = (ChessPosition) obj;
+
+		return this.column == other.column && this.row == other.row;
+	}
+
+	@Override
+	public int hashCode() {
+		return getSquare();
 	}
 
 	@Override
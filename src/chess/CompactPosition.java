@@ -0,0 +1,180 @@
+package chess;
+
+import java.util.Arrays;
+
+// A position in about a hundred bytes: one ChessPiece.code per square and the state a FEN carries, no piece objects
+// at all. Games that sit idle keep this instead of a ChessMatch, which only gets built again when someone asks for
+// the pieces. Unlike a PositionCodec record it reads any square directly, but it knows nothing of the moves that led
+// here, so a rebuilt match cannot see earlier repetitions.
+public final class CompactPosition {
+	public static final byte EMPTY = 0;
+
+	private static final int TYPE_MASK = ChessPiece.BLACK_CODE - 1;
+	private static final int BLACK_TO_MOVE = 1 << 4;
+	private static final int CASTLING_MASK = 0xF;
+
+	private static final PieceType[] TYPES = PieceType.values();
+
+	private byte[] squares = new byte[64];
+
+	// Castling rights in bits 0-3, black to move in bit 4
+	private byte flags;
+	private byte enPassantSquare = -1;
+	private short halfmoveClock;
+	private short fullmove = 1;
+
+	public CompactPosition() {
+	}
+
+	public CompactPosition(ChessMatch chessMatch) {
+		store(chessMatch);
+	}
+
+	public void store(ChessMatch chessMatch) {
+		ChessBoard board = chessMatch.getBoard();
+
+		Arrays.fill(this.squares, EMPTY);
+
+		for (long occupied = board.getOccupancy(); occupied != 0; occupied &= occupied - 1) {
+			int square = Long.numberOfTrailingZeros(occupied);
+
+			this.squares[square] = board.piece(square).getCode();
+		}
+
+		this.flags = (byte) (chessMatch.getCastlingRights()
+				| ((chessMatch.getCurrentPlayer() == Color.BLACK) ? BLACK_TO_MOVE : 0));
+		this.enPassantSquare = (byte) chessMatch.getEnPassantSquare();
+		this.halfmoveClock = (short) Math.min(chessMatch.getHalfmoveClock(), Short.MAX_VALUE);
+		this.fullmove = (short) ((chessMatch.getTurn() + 1) / 2);
+	}
+
+	public ChessMatch toChessMatch() {
+		ChessMatch chessMatch = new ChessMatch();
+
+		load(chessMatch);
+
+		return chessMatch;
+	}
+
+	// Reuses the match and its pieces where it can
+	public void load(ChessMatch chessMatch) {
+		chessMatch.clear();
+
+		for (int square = 0; square < 64; square++) {
+			if (this.squares[square] != EMPTY) {
+				chessMatch.loadPiece(color(square), type(square), square);
+			}
+		}
+
+		if (!chessMatch.endLoad(getCurrentPlayer(), getCastlingRights(), this.enPassantSquare, this.halfmoveClock,
+				this.fullmove)) {
+			throw new ChessException("Each side needs exactly one king");
+		}
+	}
+
+	public byte code(int square) {
+		return this.squares[square];
+	}
+
+	public boolean isEmpty(int square) {
+		return this.squares[square] == EMPTY;
+	}
+
+	// Null for an empty square, as is color
+	public PieceType type(int square) {
+		int code = this.squares[square];
+
+		return (code == EMPTY) ? null : TYPES[(code & TYPE_MASK) - 1];
+	}
+
+	public Color color(int square) {
+		int code = this.squares[square];
+
+		return (code == EMPTY) ? null : ((code & ChessPiece.BLACK_CODE) != 0) ? Color.BLACK : Color.WHITE;
+	}
+
+	public Color getCurrentPlayer() {
+		return ((this.flags & BLACK_TO_MOVE) != 0) ? Color.BLACK : Color.WHITE;
+	}
+
+	public int getCastlingRights() {
+		return this.flags & CASTLING_MASK;
+	}
+
+	public int getEnPassantSquare() {
+		return enPassantSquare;
+	}
+
+	public int getHalfmoveClock() {
+		return halfmoveClock;
+	}
+
+	public int getFullmove() {
+		return fullmove;
+	}
+
+	public String toFen() {
+		StringBuilder sb = new StringBuilder(90);
+
+		for (int row = 0; row < 8; row++) {
+			int empty = 0;
+
+			for (int column = 0; column < 8; column++) {
+				int square = ChessBoard.square(row, column);
+
+				if (isEmpty(square)) {
+					empty++;
+					continue;
+				}
+
+				if (empty > 0) {
+					sb.append((char) ('0' + empty));
+					empty = 0;
+				}
+
+				char letter = "PNBRQK".charAt(type(square).ordinal());
+
+				sb.append((color(square) == Color.WHITE) ? letter : Character.toLowerCase(letter));
+			}
+
+			if (empty > 0) {
+				sb.append((char) ('0' + empty));
+			}
+
+			if (row < 7) {
+				sb.append('/');
+			}
+		}
+
+		sb.append((getCurrentPlayer() == Color.WHITE) ? " w " : " b ");
+
+		int rights = getCastlingRights();
+
+		if (rights == 0) {
+			sb.append('-');
+		} else {
+			appendIf(sb, rights, ChessMatch.WHITE_KINGSIDE, 'K');
+			appendIf(sb, rights, ChessMatch.WHITE_QUEENSIDE, 'Q');
+			appendIf(sb, rights, ChessMatch.BLACK_KINGSIDE, 'k');
+			appendIf(sb, rights, ChessMatch.BLACK_QUEENSIDE, 'q');
+		}
+
+		sb.append(' ');
+
+		if (this.enPassantSquare < 0) {
+			sb.append('-');
+		} else {
+			sb.append((char) ('a' + ChessBoard.column(this.enPassantSquare)));
+			sb.append((char) ('8' - ChessBoard.row(this.enPassantSquare)));
+		}
+
+		return sb.append(' ').append(this.halfmoveClock).append(' ').append(this.fullmove).toString();
+	}
+
+	private static void appendIf(StringBuilder sb, int rights, int right, char c) {
+		if ((rights & right) != 0) {
+			sb.append(c);
+		}
+	}
+
+}
@@ -0,0 +1,97 @@
+package chess;
+
+public final class Move {
+	public static final int NONE = 0;
+
+	public static final int CAPTURE = 1 << 12;
+	public static final int DOUBLE_PAWN_PUSH = 1 << 13;
+	public static final int EN_PASSANT = 1 << 14;
+	public static final int CASTLING = 1 << 15;
+	public static final int PROMOTION = 1 << 16;
+
+	private static final int SQUARE_MASK = 0x3F;
+	private static final int TO_SHIFT = 6;
+	private static final int FLAGS_MASK = CAPTURE | DOUBLE_PAWN_PUSH | EN_PASSANT | CASTLING | PROMOTION;
+	private static final int PROMOTION_SHIFT = 17;
+
+	private static final PieceType[] TYPES = PieceType.values();
+
+	private Move() {
+	}
+
+	public static int encode(int from, int to, int flags) {
+		return from | (to << TO_SHIFT) | flags;
+	}
+
+	public static int encode(int from, int to, int flags, PieceType promotion) {
+		return from | (to << TO_SHIFT) | flags | PROMOTION | (promotion.ordinal() << PROMOTION_SHIFT);
+	}
+
+	public static int from(int move) {
+		return move & SQUARE_MASK;
+	}
+
+	public static int to(int move) {
+		return (move >>> TO_SHIFT) & SQUARE_MASK;
+	}
+
+	public static int flags(int move) {
+		return move & FLAGS_MASK;
+	}
+
+	public static boolean isCapture(int move) {
+		return (move & CAPTURE) != 0;
+	}
+
+	public static boolean isDoublePawnPush(int move) {
+		return (move & DOUBLE_PAWN_PUSH) != 0;
+	}
+
+	public static boolean isEnPassant(int move) {
+		return (move & EN_PASSANT) != 0;
+	}
+
+	public static boolean isCastling(int move) {
+		return (move & CASTLING) != 0;
+	}
+
+	public static boolean isPromotion(int move) {
+		return (move & PROMOTION) != 0;
+	}
+
+	public static PieceType promotion(int move) {
+		return isPromotion(move) ? TYPES[move >>> PROMOTION_SHIFT] : null;
+	}
+
+	public static String toString(int move) {
+		StringBuilder sb = new StringBuilder(5);
+
+		appendSquare(sb, from(move));
+		appendSquare(sb, to(move));
+
+		if (isPromotion(move)) {
+			sb.append(Character.toLowerCase(promotionSymbol(promotion(move))));
+		}
+
+		return sb.toString();
+	}
+
+	private static void appendSquare(StringBuilder sb, int square) {
+		sb.append((char) ('a' + ChessBoard.column(square)));
+		sb.append((char) ('8' - ChessBoard.row(square)));
+	}
+
+	private static char promotionSymbol(PieceType type) {
+		switch (type) {
+		case KNIGHT:
+			return 'N';
+		case BISHOP:
+			return 'B';
+		case ROOK:
+			return 'R';
+		default:
+			return 'Q';
+		}
+	}
+
+}
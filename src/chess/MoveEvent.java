@@ -0,0 +1,79 @@
+package chess;
+
+public class MoveEvent {
+	private ChessMatch chessMatch;
+	private int ply;
+	private int move;
+	private Color player;
+	private PieceType captured;
+	private boolean check;
+	private boolean checkMate;
+	private boolean stalemate;
+	private boolean amended;
+
+	MoveEvent(ChessMatch chessMatch, int move, Color player, ChessPiece captured, boolean amended) {
+		this.chessMatch = chessMatch;
+		this.ply = chessMatch.getPly();
+		this.move = move;
+		this.player = player;
+		this.captured = (captured == null) ? null : captured.getType();
+		this.check = chessMatch.isCheck();
+		this.checkMate = chessMatch.isCheckMate();
+		this.stalemate = chessMatch.isStalemate();
+		this.amended = amended;
+	}
+
+	// Only to be read from the listener call, the match moves on afterwards
+	public ChessMatch getChessMatch() {
+		return chessMatch;
+	}
+
+	// The ply count after the move
+	public int getPly() {
+		return ply;
+	}
+
+	public int getMove() {
+		return move;
+	}
+
+	public Color getPlayer() {
+		return player;
+	}
+
+	public PieceType getCaptured() {
+		return captured;
+	}
+
+	public boolean isCapture() {
+		return captured != null;
+	}
+
+	public boolean isPromotion() {
+		return Move.isPromotion(move);
+	}
+
+	public boolean isCheck() {
+		return check;
+	}
+
+	public boolean isCheckMate() {
+		return checkMate;
+	}
+
+	public boolean isStalemate() {
+		return stalemate;
+	}
+
+	// Replaces the event of the same ply: the promoted queen was swapped for another piece
+	public boolean isAmended() {
+		return amended;
+	}
+
+	@Override
+	public String toString() {
+		return ply + " " + Move.toString(move) + (amended ? " amended" : "") + (isCapture() ? " x" + captured : "")
+				+ (checkMate ? " #" : check ? " +" : "") + (stalemate ? " stalemate" : "");
+	}
+
+}
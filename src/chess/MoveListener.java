@@ -0,0 +1,6 @@
+package chess;
+
+// Told about every move played through performChessMove, on the thread that played it
+public interface MoveListener {
+	void moveMade(MoveEvent event);
+}
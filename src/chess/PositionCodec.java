@@ -0,0 +1,169 @@
+package chess;
+
+import java.nio.ByteBuffer;
+
+// Fixed size binary position record, in the byte order of the buffer (little endian in database files):
+// 0-7 occupancy, 8-23 one nibble per occupied square in square order (color * 6 + type),
+// 24 side to move (bit 0) and castling rights (bits 1-4), 25 en passant square or 0xFF,
+// 26 halfmove clock, 27 reserved, 28-29 fullmove number, 30-31 reserved
+public final class PositionCodec {
+	public static final int SIZE = 32;
+
+	private static final int MAX_PIECES = 32;
+	private static final int PIECES_OFFSET = 8;
+	private static final int FLAGS_OFFSET = 24;
+	private static final int EN_PASSANT_OFFSET = 25;
+	private static final int HALFMOVE_OFFSET = 26;
+	private static final int FULLMOVE_OFFSET = 28;
+	private static final int NO_EN_PASSANT = 0xFF;
+
+	private static final PieceType[] TYPES = PieceType.values();
+	private static final Color[] COLORS = Color.values();
+
+	// Compact moves: from in bits 0-5, to in bits 6-11, promotion piece in bits 12-14 (0 none, 1 knight to 4 queen)
+	private static final int PROMOTION_SHIFT = 12;
+
+	private PositionCodec() {
+	}
+
+	public static void encode(ChessMatch chessMatch, ByteBuffer buffer, int offset) {
+		ChessBoard board = chessMatch.getBoard();
+		long occupancy = board.getOccupancy();
+
+		if (Long.bitCount(occupancy) > MAX_PIECES) {
+			throw new ChessException("A position record holds at most " + MAX_PIECES + " pieces");
+		}
+
+		buffer.putLong(offset, occupancy);
+
+		long nibbles0 = 0L;
+		long nibbles1 = 0L;
+		int i = 0;
+
+		for (; occupancy != 0; occupancy &= occupancy - 1, i++) {
+			ChessPiece piece = board.piece(Long.numberOfTrailingZeros(occupancy));
+			long code = piece.getColor().ordinal() * TYPES.length + piece.getType().ordinal();
+
+			if (i < 16) {
+				nibbles0 |= code << (i * 4);
+			} else {
+				nibbles1 |= code << ((i - 16) * 4);
+			}
+		}
+
+		buffer.putLong(offset + PIECES_OFFSET, nibbles0);
+		buffer.putLong(offset + PIECES_OFFSET + 8, nibbles1);
+		buffer.put(offset + FLAGS_OFFSET, (byte) (((chessMatch.getCurrentPlayer() == Color.BLACK) ? 1 : 0)
+				| (chessMatch.getCastlingRights() << 1)));
+		buffer.put(offset + EN_PASSANT_OFFSET,
+				(byte) ((chessMatch.getEnPassantSquare() < 0) ? NO_EN_PASSANT : chessMatch.getEnPassantSquare()));
+		buffer.put(offset + HALFMOVE_OFFSET, (byte) Math.min(chessMatch.getHalfmoveClock(), 0xFF));
+		buffer.put(offset + HALFMOVE_OFFSET + 1, (byte) 0);
+		buffer.putShort(offset + FULLMOVE_OFFSET, (short) ((chessMatch.getTurn() + 1) / 2));
+		buffer.putShort(offset + FULLMOVE_OFFSET + 2, (short) 0);
+	}
+
+	public static void decode(ByteBuffer buffer, int offset, ChessMatch chessMatch) {
+		chessMatch.clear();
+
+		int i = 0;
+
+		for (long occupancy = occupancy(buffer, offset); occupancy != 0; occupancy &= occupancy - 1, i++) {
+			int code = pieceCode(buffer, offset, i);
+
+			if (code >= COLORS.length * TYPES.length) {
+				throw new ChessException("Corrupt position record");
+			}
+
+			chessMatch.loadPiece(COLORS[code / TYPES.length], TYPES[code % TYPES.length],
+					Long.numberOfTrailingZeros(occupancy));
+		}
+
+		boolean black = isBlackToMove(buffer, offset);
+
+		if (!chessMatch.endLoad(black ? Color.BLACK : Color.WHITE, castlingRights(buffer, offset),
+				enPassantSquare(buffer, offset, black), buffer.get(offset + HALFMOVE_OFFSET) & 0xFF,
+				buffer.getShort(offset + FULLMOVE_OFFSET) & 0xFFFF)) {
+			throw new ChessException("Corrupt position record");
+		}
+	}
+
+	public static long occupancy(ByteBuffer buffer, int offset) {
+		return buffer.getLong(offset);
+	}
+
+	public static boolean isBlackToMove(ByteBuffer buffer, int offset) {
+		return (buffer.get(offset + FLAGS_OFFSET) & 1) != 0;
+	}
+
+	public static int castlingRights(ByteBuffer buffer, int offset) {
+		return (buffer.get(offset + FLAGS_OFFSET) >>> 1) & 0xF;
+	}
+
+	// The square behind a pawn that just moved two, so rank 6 with white to move and rank 3 with black to move
+	private static int enPassantSquare(ByteBuffer buffer, int offset, boolean black) {
+		int enPassant = buffer.get(offset + EN_PASSANT_OFFSET) & 0xFF;
+
+		if (enPassant == NO_EN_PASSANT) {
+			return -1;
+		}
+
+		if (enPassant >= 64 || ChessBoard.row(enPassant) != (black ? 5 : 2)) {
+			throw new ChessException("Corrupt position record");
+		}
+
+		return enPassant;
+	}
+
+	private static int pieceCode(ByteBuffer buffer, int offset, int index) {
+		return (int) (buffer.getLong(offset + PIECES_OFFSET + ((index >>> 4) << 3)) >>> ((index & 15) * 4)) & 0xF;
+	}
+
+	// The same key as ChessMatch.getZobristKey(), straight from the record
+	public static long key(ByteBuffer buffer, int offset) {
+		boolean black = isBlackToMove(buffer, offset);
+		long key = Zobrist.castling(castlingRights(buffer, offset)) ^ (black ? Zobrist.blackToMove() : 0L);
+		long pawns = 0L;
+		int pawnCode = (black ? Color.BLACK : Color.WHITE).ordinal() * TYPES.length + PieceType.PAWN.ordinal();
+		int i = 0;
+
+		for (long occupancy = occupancy(buffer, offset); occupancy != 0; occupancy &= occupancy - 1, i++) {
+			int square = Long.numberOfTrailingZeros(occupancy);
+			int code = pieceCode(buffer, offset, i);
+
+			key ^= Zobrist.piece(COLORS[code / TYPES.length], TYPES[code % TYPES.length], square);
+
+			if (code == pawnCode) {
+				pawns |= 1L << square;
+			}
+		}
+
+		int enPassant = enPassantSquare(buffer, offset, black);
+
+		if (enPassant >= 0 && (Attacks.pawnAttacks(black ? Color.WHITE : Color.BLACK, enPassant) & pawns) != 0) {
+			key ^= Zobrist.enPassantFile(ChessBoard.column(enPassant));
+		}
+
+		return key;
+	}
+
+	public static int compactMove(int move) {
+		int promotion = Move.isPromotion(move) ? Move.promotion(move).ordinal() : 0;
+
+		return Move.from(move) | (Move.to(move) << 6) | (promotion << PROMOTION_SHIFT);
+	}
+
+	// A compact move only names squares and promotion, the flags come back from the position it is played in
+	public static int expandMove(ChessMatch chessMatch, int compact) {
+		int from = compact & 63;
+		int to = (compact >>> 6) & 63;
+		int promotion = compact >>> PROMOTION_SHIFT;
+		int move = chessMatch.findLegalMove(from, to, promotion);
+
+		if (move != Move.NONE) {
+			return move;
+		}
+
+		throw new ChessException("Illegal move in this position: " + Move.toString(Move.encode(from, to, 0)));
+	}
+}
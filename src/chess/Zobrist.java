@@ -0,0 +1,67 @@
+package chess;
+
+public final class Zobrist {
+	private static final long[][][] PIECES = new long[Color.values().length][PieceType.values().length][64];
+	private static final long[] CASTLING = new long[16];
+	private static final long[] EN_PASSANT_FILES = new long[8];
+	private static final long BLACK_TO_MOVE;
+
+	private static long seed = 0x6A09E667F3BCC909L;
+
+	static {
+		for (long[][] colorKeys : PIECES) {
+			for (long[] typeKeys : colorKeys) {
+				for (int square = 0; square < 64; square++) {
+					typeKeys[square] = nextRandom();
+				}
+			}
+		}
+
+		// Combined rights hash as the XOR of the single right keys, so each right toggles independently
+		long[] rights = { nextRandom(), nextRandom(), nextRandom(), nextRandom() };
+
+		for (int mask = 0; mask < CASTLING.length; mask++) {
+			for (int bit = 0; bit < rights.length; bit++) {
+				if ((mask & (1 << bit)) != 0) {
+					CASTLING[mask] ^= rights[bit];
+				}
+			}
+		}
+
+		for (int file = 0; file < EN_PASSANT_FILES.length; file++) {
+			EN_PASSANT_FILES[file] = nextRandom();
+		}
+
+		BLACK_TO_MOVE = nextRandom();
+	}
+
+	private Zobrist() {
+	}
+
+	public static long piece(Color color, PieceType type, int square) {
+		return PIECES[color.ordinal()][type.ordinal()][square];
+	}
+
+	public static long castling(int rights) {
+		return CASTLING[rights];
+	}
+
+	public static long enPassantFile(int file) {
+		return EN_PASSANT_FILES[file];
+	}
+
+	public static long blackToMove() {
+		return BLACK_TO_MOVE;
+	}
+
+	private static long nextRandom() {
+		// splitmix64 with a constant seed, keys must be identical on every run to be stored on disk
+		long z = (seed += 0x9E3779B97F4A7C15L);
+
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+
+		return z ^ (z >>> 31);
+	}
+
+}
@@ -0,0 +1,165 @@
+package chess.book;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+import chess.ChessException;
+import chess.ChessMatch;
+import chess.Move;
+import chess.PositionCodec;
+
+// Polyglot style book keyed by this project's Zobrist keys: entries sorted by key, 16 bytes each, little endian:
+// 0-7 key, 8-9 compact move, 10-11 weight, 12-15 reserved. The mapping is only read with absolute gets, so one
+// instance can serve any number of matches and threads without locking.
+public class OpeningBook {
+	static final long MAGIC = 0x314B4F4F42535343L;
+	static final int VERSION = 1;
+	static final int HEADER_SIZE = 16;
+	static final int ENTRY_SIZE = 16;
+
+	// One book serves every thread, so the probe buffers are per thread rather than per call
+	private static final ThreadLocal<int[][]> BUFFERS = ThreadLocal
+			.withInitial(() -> new int[][] { new int[ChessMatch.MAX_MOVES], new int[ChessMatch.MAX_MOVES] });
+
+	private ByteBuffer entries;
+	private int entryCount;
+
+	public OpeningBook(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long size = channel.size();
+
+			if (size > Integer.MAX_VALUE) {
+				throw new ChessException("Opening book too large: " + path);
+			}
+
+			ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size).order(ByteOrder.LITTLE_ENDIAN);
+
+			if (size < HEADER_SIZE || buffer.getLong(0) != MAGIC || buffer.getInt(8) != VERSION
+					|| buffer.getInt(12) != ENTRY_SIZE || (size - HEADER_SIZE) % ENTRY_SIZE != 0) {
+				throw new ChessException("Not an opening book: " + path);
+			}
+
+			this.entries = buffer;
+			this.entryCount = (int) ((size - HEADER_SIZE) / ENTRY_SIZE);
+		}
+	}
+
+	public int getEntryCount() {
+		return entryCount;
+	}
+
+	private long key(int index) {
+		return this.entries.getLong(HEADER_SIZE + index * ENTRY_SIZE);
+	}
+
+	private int compactMove(int index) {
+		return this.entries.getShort(HEADER_SIZE + index * ENTRY_SIZE + 8) & 0xFFFF;
+	}
+
+	private int weight(int index) {
+		return this.entries.getShort(HEADER_SIZE + index * ENTRY_SIZE + 10) & 0xFFFF;
+	}
+
+	// Index of the first entry with this key, or of the first larger key
+	private int lowerBound(long key) {
+		int low = 0;
+		int high = this.entryCount;
+
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+
+			if (key(middle) < key) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+
+		return low;
+	}
+
+	// Fills the legal book moves of the position with their weights, returns how many there are
+	public int probe(ChessMatch chessMatch, int[] moves, int[] weights) {
+		long key = chessMatch.getZobristKey();
+		int count = 0;
+
+		for (int i = lowerBound(key); i < this.entryCount && key(i) == key && count < moves.length; i++) {
+			int move = expand(chessMatch, compactMove(i));
+
+			// A key collision with another position shows up as a move that is not legal here
+			if (move != Move.NONE && weight(i) > 0) {
+				moves[count] = move;
+				weights[count] = weight(i);
+				count++;
+			}
+		}
+
+		return count;
+	}
+
+	private static int expand(ChessMatch chessMatch, int compact) {
+		try {
+			return PositionCodec.expandMove(chessMatch, compact);
+		} catch (ChessException e) {
+			return Move.NONE;
+		}
+	}
+
+	public int bestMove(ChessMatch chessMatch) {
+		int[][] buffers = BUFFERS.get();
+		int[] moves = buffers[0];
+		int[] weights = buffers[1];
+		int count = probe(chessMatch, moves, weights);
+		int best = Move.NONE;
+		int bestWeight = 0;
+
+		for (int i = 0; i < count; i++) {
+			if (weights[i] > bestWeight) {
+				best = moves[i];
+				bestWeight = weights[i];
+			}
+		}
+
+		return best;
+	}
+
+	public int pickMove(ChessMatch chessMatch) {
+		return pickMove(chessMatch, ThreadLocalRandom.current());
+	}
+
+	// A move drawn with probability proportional to its weight, Move.NONE when the position is not in the book
+	public int pickMove(ChessMatch chessMatch, Random random) {
+		int[][] buffers = BUFFERS.get();
+		int[] moves = buffers[0];
+		int[] weights = buffers[1];
+		int count = probe(chessMatch, moves, weights);
+		int total = 0;
+
+		for (int i = 0; i < count; i++) {
+			total += weights[i];
+		}
+
+		if (total == 0) {
+			return Move.NONE;
+		}
+
+		int pick = random.nextInt(total);
+
+		for (int i = 0; i < count; i++) {
+			pick -= weights[i];
+
+			if (pick < 0) {
+				return moves[i];
+			}
+		}
+
+		return moves[count - 1];
+	}
+
+}
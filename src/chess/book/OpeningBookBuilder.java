@@ -0,0 +1,83 @@
+package chess.book;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import chess.ChessMatch;
+import chess.PositionCodec;
+
+// Counts how often each move was played from each position, the counts become the book weights
+public class OpeningBookBuilder {
+	private static final int MAX_WEIGHT = 0xFFFF;
+
+	private Map<Long, Map<Integer, Integer>> counts = new HashMap<>();
+
+	public int getPositionCount() {
+		return counts.size();
+	}
+
+	public void add(ChessMatch chessMatch, int move) {
+		this.counts.computeIfAbsent(chessMatch.getZobristKey(), key -> new HashMap<>())
+				.merge(PositionCodec.compactMove(move), 1, Integer::sum);
+	}
+
+	public void write(Path path) throws IOException {
+		List<Long> keys = new ArrayList<>(this.counts.keySet());
+
+		keys.sort(null);
+
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+
+			buffer.putLong(OpeningBook.MAGIC);
+			buffer.putInt(OpeningBook.VERSION);
+			buffer.putInt(OpeningBook.ENTRY_SIZE);
+
+			for (Long key : keys) {
+				Map<Integer, Integer> moves = this.counts.get(key);
+				int maxCount = 0;
+
+				for (int count : moves.values()) {
+					maxCount = Math.max(maxCount, count);
+				}
+
+				for (Map.Entry<Integer, Integer> entry : moves.entrySet()) {
+					if (buffer.remaining() < OpeningBook.ENTRY_SIZE) {
+						flush(buffer, channel);
+					}
+
+					// Weights keep their ratios when the counts overflow 16 bits
+					long weight = (maxCount <= MAX_WEIGHT) ? entry.getValue()
+							: Math.max(1L, (long) entry.getValue() * MAX_WEIGHT / maxCount);
+
+					buffer.putLong(key);
+					buffer.putShort((short) entry.getKey().intValue());
+					buffer.putShort((short) weight);
+					buffer.putInt(0);
+				}
+			}
+
+			flush(buffer, channel);
+		}
+	}
+
+	private static void flush(ByteBuffer buffer, FileChannel channel) throws IOException {
+		buffer.flip();
+
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+
+		buffer.clear();
+	}
+
+}
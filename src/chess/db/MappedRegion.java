@@ -0,0 +1,43 @@
+package chess.db;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+// A file region mapped in 1 GB segments, since a single mapping is int indexed
+final class MappedRegion {
+	static final int SEGMENT_SHIFT = 30;
+	static final long SEGMENT_MASK = (1L << SEGMENT_SHIFT) - 1;
+
+	private ByteBuffer[] segments;
+
+	MappedRegion(FileChannel channel, FileChannel.MapMode mode, long offset, long size) throws IOException {
+		this.segments = new ByteBuffer[(int) ((size + SEGMENT_MASK) >>> SEGMENT_SHIFT)];
+
+		for (int i = 0; i < this.segments.length; i++) {
+			long start = (long) i << SEGMENT_SHIFT;
+
+			this.segments[i] = channel.map(mode, offset + start, Math.min(size - start, 1L << SEGMENT_SHIFT))
+					.order(ByteOrder.LITTLE_ENDIAN);
+		}
+	}
+
+	// Records are aligned to their own size, which divides the segment size, so none crosses a segment boundary
+	ByteBuffer segment(long position) {
+		return this.segments[(int) (position >>> SEGMENT_SHIFT)];
+	}
+
+	static int offset(long position) {
+		return (int) (position & SEGMENT_MASK);
+	}
+
+	int segmentCount() {
+		return this.segments.length;
+	}
+
+	ByteBuffer segmentAt(int index) {
+		return this.segments[index];
+	}
+
+}
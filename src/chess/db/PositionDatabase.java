@@ -0,0 +1,210 @@
+package chess.db;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import chess.ChessException;
+import chess.ChessMatch;
+import chess.PositionCodec;
+
+// Read-only view of a position database file, all sections are memory mapped:
+// header | position records | game records | game offsets | same-position chain | hash index
+// The hash index has one slot per distinct key: key, first and last position index + 1, and the count.
+// The chain links each position to the next one with the same key, so repeated positions cost no probing.
+public class PositionDatabase implements Closeable {
+	static final long MAGIC = 0x3142444353534843L;
+	static final int VERSION = 1;
+	static final int HEADER_SIZE = 64;
+	static final int HASH_SLOT_SIZE = 32;
+
+	private static final int GAME_HEADER_SIZE = 12;
+
+	public interface PositionVisitor {
+		void visit(long index, ByteBuffer buffer, int offset);
+	}
+
+	private FileChannel channel;
+	private long positionCount;
+	private long gameCount;
+	private long hashSlots;
+	private MappedRegion positions;
+	private MappedRegion games;
+	private MappedRegion gameIndex;
+	private MappedRegion chain;
+	private MappedRegion hash;
+
+	public PositionDatabase(Path path) throws IOException {
+		this.channel = FileChannel.open(path, StandardOpenOption.READ);
+
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+		while (header.hasRemaining()) {
+			if (this.channel.read(header, header.position()) < 0) {
+				break;
+			}
+		}
+
+		header.flip();
+
+		if (header.remaining() < HEADER_SIZE || header.getLong() != MAGIC || header.getInt() != VERSION
+				|| header.getInt() != PositionCodec.SIZE) {
+			this.channel.close();
+
+			throw new ChessException("Not a position database: " + path);
+		}
+
+		this.positionCount = header.getLong();
+		this.gameCount = header.getLong();
+
+		long gamesOffset = header.getLong();
+		long gameIndexOffset = header.getLong();
+		long chainOffset = gameIndexOffset + this.gameCount * Long.BYTES;
+		long hashOffset = header.getLong();
+
+		this.hashSlots = header.getLong();
+		this.positions = map(HEADER_SIZE, this.positionCount * PositionCodec.SIZE);
+		this.games = map(gamesOffset, gameIndexOffset - gamesOffset);
+		this.gameIndex = map(gameIndexOffset, this.gameCount * Long.BYTES);
+		this.chain = map(chainOffset, this.positionCount * Long.BYTES);
+		this.hash = map(hashOffset, this.hashSlots * HASH_SLOT_SIZE);
+	}
+
+	private MappedRegion map(long offset, long size) throws IOException {
+		return new MappedRegion(this.channel, FileChannel.MapMode.READ_ONLY, offset, size);
+	}
+
+	static int gameRecordSize(int moveCount) {
+		return (GAME_HEADER_SIZE + moveCount * Short.BYTES + 7) & ~7;
+	}
+
+	// Power of two with at least half of the slots free even if every position is distinct
+	static long hashSlots(long positionCount) {
+		return Long.highestOneBit(Math.max(positionCount, 1L)) << 2;
+	}
+
+	public long getPositionCount() {
+		return positionCount;
+	}
+
+	public long getGameCount() {
+		return gameCount;
+	}
+
+	public void readPosition(long index, ChessMatch chessMatch) {
+		long record = positionRecord(index);
+
+		PositionCodec.decode(this.positions.segment(record), MappedRegion.offset(record), chessMatch);
+	}
+
+	public long getKey(long index) {
+		long record = positionRecord(index);
+
+		return PositionCodec.key(this.positions.segment(record), MappedRegion.offset(record));
+	}
+
+	private long positionRecord(long index) {
+		if (index < 0 || index >= this.positionCount) {
+			throw new IndexOutOfBoundsException("Position " + index + " of " + this.positionCount);
+		}
+
+		return index * PositionCodec.SIZE;
+	}
+
+	// Sequential pass over the raw records, segment by segment, without decoding them
+	public void scan(PositionVisitor visitor) {
+		long index = 0L;
+
+		for (int i = 0; i < this.positions.segmentCount(); i++) {
+			ByteBuffer segment = this.positions.segmentAt(i);
+
+			for (int offset = 0; offset < segment.limit(); offset += PositionCodec.SIZE) {
+				visitor.visit(index++, segment, offset);
+			}
+		}
+	}
+
+	// The first position stored with this key, or -1
+	public long find(long key) {
+		long slot = hashSlot(key);
+
+		return (slot < 0) ? -1L : this.hash.segment(slot).getLong(MappedRegion.offset(slot) + 8) - 1;
+	}
+
+	// The next position stored with the same key, or -1
+	public long findNext(long index) {
+		long link = positionRecord(index) / PositionCodec.SIZE * Long.BYTES;
+
+		return this.chain.segment(link).getLong(MappedRegion.offset(link)) - 1;
+	}
+
+	public long count(long key) {
+		long slot = hashSlot(key);
+
+		return (slot < 0) ? 0L : this.hash.segment(slot).getLong(MappedRegion.offset(slot) + 24);
+	}
+
+	private long hashSlot(long key) {
+		long mask = this.hashSlots - 1;
+
+		for (long slot = key & mask;; slot = (slot + 1) & mask) {
+			long position = slot * HASH_SLOT_SIZE;
+			ByteBuffer segment = this.hash.segment(position);
+			int offset = MappedRegion.offset(position);
+
+			if (segment.getLong(offset + 8) == 0) {
+				return -1L;
+			}
+
+			if (segment.getLong(offset) == key) {
+				return position;
+			}
+		}
+	}
+
+	public long getGameStart(long game) {
+		long record = gameRecord(game);
+
+		return this.games.segment(record).getLong(MappedRegion.offset(record));
+	}
+
+	public int getGameLength(long game) {
+		long position = gameRecord(game) + Long.BYTES;
+
+		return this.games.segment(position).getInt(MappedRegion.offset(position));
+	}
+
+	// Compact moves as written by PositionCodec.compactMove, returns the number of moves
+	public int readGameMoves(long game, int[] moves) {
+		long record = gameRecord(game);
+		int count = getGameLength(game);
+
+		for (int i = 0; i < count; i++) {
+			long position = record + GAME_HEADER_SIZE + i * Short.BYTES;
+
+			moves[i] = this.games.segment(position).getShort(MappedRegion.offset(position)) & 0xFFFF;
+		}
+
+		return count;
+	}
+
+	private long gameRecord(long game) {
+		if (game < 0 || game >= this.gameCount) {
+			throw new IndexOutOfBoundsException("Game " + game + " of " + this.gameCount);
+		}
+
+		long slot = game * Long.BYTES;
+
+		return this.gameIndex.segment(slot).getLong(MappedRegion.offset(slot));
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.channel.close();
+	}
+
+}
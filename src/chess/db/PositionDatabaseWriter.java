@@ -0,0 +1,204 @@
+package chess.db;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import chess.ChessMatch;
+import chess.PositionCodec;
+
+// Appends positions and games, then lays out the game offsets and the hash index on close. Memory use is constant.
+public class PositionDatabaseWriter implements Closeable {
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private Path gamesPath;
+	private FileChannel channel;
+	private FileChannel games;
+	private ByteBuffer positionBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+	private ByteBuffer gameBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+	private long positionCount;
+	private long gameCount;
+
+	public PositionDatabaseWriter(Path path) throws IOException {
+		this.gamesPath = path.resolveSibling(path.getFileName() + ".games.tmp");
+		this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+				StandardOpenOption.READ, StandardOpenOption.WRITE);
+		this.games = FileChannel.open(this.gamesPath, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		this.channel.position(PositionDatabase.HEADER_SIZE);
+	}
+
+	public long getPositionCount() {
+		return positionCount;
+	}
+
+	public long getGameCount() {
+		return gameCount;
+	}
+
+	public long addPosition(ChessMatch chessMatch) throws IOException {
+		if (this.positionBuffer.remaining() < PositionCodec.SIZE) {
+			flush(this.positionBuffer, this.channel);
+		}
+
+		PositionCodec.encode(chessMatch, this.positionBuffer, this.positionBuffer.position());
+		this.positionBuffer.position(this.positionBuffer.position() + PositionCodec.SIZE);
+
+		return this.positionCount++;
+	}
+
+	// The start position is stored as a position record, the moves as compact 16 bit moves
+	public long addGame(ChessMatch start, int[] moves, int count) throws IOException {
+		long startIndex = addPosition(start);
+		int size = PositionDatabase.gameRecordSize(count);
+
+		if (size > this.gameBuffer.capacity()) {
+			throw new IllegalArgumentException("Game too long: " + count + " moves");
+		}
+
+		if (this.gameBuffer.remaining() < size) {
+			flush(this.gameBuffer, this.games);
+		}
+
+		int end = this.gameBuffer.position() + size;
+
+		this.gameBuffer.putLong(startIndex);
+		this.gameBuffer.putInt(count);
+
+		for (int i = 0; i < count; i++) {
+			this.gameBuffer.putShort((short) PositionCodec.compactMove(moves[i]));
+		}
+
+		// Records are padded to 8 bytes so every field stays aligned in the mapped file
+		while (this.gameBuffer.position() < end) {
+			this.gameBuffer.put((byte) 0);
+		}
+
+		return this.gameCount++;
+	}
+
+	private static void flush(ByteBuffer buffer, FileChannel channel) throws IOException {
+		buffer.flip();
+
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+
+		buffer.clear();
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			flush(this.positionBuffer, this.channel);
+			flush(this.gameBuffer, this.games);
+
+			long gamesOffset = PositionDatabase.HEADER_SIZE + this.positionCount * PositionCodec.SIZE;
+			long gamesSize = this.games.size();
+
+			for (long done = 0; done < gamesSize;) {
+				done += this.channel.transferFrom(this.games.position(done), gamesOffset + done, gamesSize - done);
+			}
+
+			long gameIndexOffset = gamesOffset + gamesSize;
+			long chainOffset = gameIndexOffset + this.gameCount * Long.BYTES;
+			long hashOffset = chainOffset + this.positionCount * Long.BYTES;
+			long hashSlots = PositionDatabase.hashSlots(this.positionCount);
+
+			writeGameIndex(gamesOffset, gameIndexOffset);
+			writeHashIndex(chainOffset, hashOffset, hashSlots);
+			writeHeader(gamesOffset, gameIndexOffset, hashOffset, hashSlots);
+		} finally {
+			this.channel.close();
+			this.games.close();
+			Files.deleteIfExists(this.gamesPath);
+		}
+	}
+
+	private void writeGameIndex(long gamesOffset, long gameIndexOffset) throws IOException {
+		if (this.gameCount == 0) {
+			return;
+		}
+
+		MappedRegion records = new MappedRegion(this.channel, FileChannel.MapMode.READ_ONLY, gamesOffset,
+				gameIndexOffset - gamesOffset);
+		MappedRegion index = new MappedRegion(this.channel, FileChannel.MapMode.READ_WRITE, gameIndexOffset,
+				this.gameCount * Long.BYTES);
+		long position = 0L;
+
+		for (long game = 0; game < this.gameCount; game++) {
+			long slot = game * Long.BYTES;
+			int count = records.segment(position + Long.BYTES).getInt(MappedRegion.offset(position + Long.BYTES));
+
+			index.segment(slot).putLong(MappedRegion.offset(slot), position);
+			position += PositionDatabase.gameRecordSize(count);
+		}
+	}
+
+	// Open addressing on the Zobrist key, built by one sequential pass over the position records
+	private void writeHashIndex(long chainOffset, long hashOffset, long hashSlots) throws IOException {
+		long positionsSize = this.positionCount * PositionCodec.SIZE;
+		MappedRegion positions = (positionsSize == 0) ? null
+				: new MappedRegion(this.channel, FileChannel.MapMode.READ_ONLY, PositionDatabase.HEADER_SIZE,
+						positionsSize);
+		MappedRegion chain = new MappedRegion(this.channel, FileChannel.MapMode.READ_WRITE, chainOffset,
+				this.positionCount * Long.BYTES);
+		MappedRegion hash = new MappedRegion(this.channel, FileChannel.MapMode.READ_WRITE, hashOffset,
+				hashSlots * PositionDatabase.HASH_SLOT_SIZE);
+		long mask = hashSlots - 1;
+
+		for (long i = 0; i < this.positionCount; i++) {
+			long record = i * PositionCodec.SIZE;
+			long key = PositionCodec.key(positions.segment(record), MappedRegion.offset(record));
+
+			for (long slot = key & mask;; slot = (slot + 1) & mask) {
+				long position = slot * PositionDatabase.HASH_SLOT_SIZE;
+				ByteBuffer segment = hash.segment(position);
+				int offset = MappedRegion.offset(position);
+				long last = segment.getLong(offset + 16);
+
+				if (last == 0) {
+					segment.putLong(offset, key);
+					segment.putLong(offset + 8, i + 1);
+				} else if (segment.getLong(offset) == key) {
+					long link = (last - 1) * Long.BYTES;
+
+					chain.segment(link).putLong(MappedRegion.offset(link), i + 1);
+				} else {
+					continue;
+				}
+
+				segment.putLong(offset + 16, i + 1);
+				segment.putLong(offset + 24, segment.getLong(offset + 24) + 1);
+
+				break;
+			}
+		}
+	}
+
+	private void writeHeader(long gamesOffset, long gameIndexOffset, long hashOffset, long hashSlots)
+			throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(PositionDatabase.HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+		header.putLong(PositionDatabase.MAGIC);
+		header.putInt(PositionDatabase.VERSION);
+		header.putInt(PositionCodec.SIZE);
+		header.putLong(this.positionCount);
+		header.putLong(this.gameCount);
+		header.putLong(gamesOffset);
+		header.putLong(gameIndexOffset);
+		header.putLong(hashOffset);
+		header.putLong(hashSlots);
+		header.flip();
+
+		for (long done = 0; header.hasRemaining();) {
+			done += this.channel.write(header, done);
+		}
+	}
+
+}
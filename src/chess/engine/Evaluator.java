@@ -0,0 +1,87 @@
+package chess.engine;
+
+import chess.ChessBoard;
+import chess.ChessMatch;
+import chess.Color;
+import chess.PieceType;
+
+public final class Evaluator {
+	public static final int[] PIECE_VALUES = { 100, 320, 330, 500, 900, 0 };
+
+	// Simplified evaluation function tables, rank 8 first, from white's point of view
+	private static final int[][] PIECE_SQUARES = {
+			{ 0, 0, 0, 0, 0, 0, 0, 0,
+			  50, 50, 50, 50, 50, 50, 50, 50,
+			  10, 10, 20, 30, 30, 20, 10, 10,
+			  5, 5, 10, 25, 25, 10, 5, 5,
+			  0, 0, 0, 20, 20, 0, 0, 0,
+			  5, -5, -10, 0, 0, -10, -5, 5,
+			  5, 10, 10, -20, -20, 10, 10, 5,
+			  0, 0, 0, 0, 0, 0, 0, 0 },
+			{ -50, -40, -30, -30, -30, -30, -40, -50,
+			  -40, -20, 0, 0, 0, 0, -20, -40,
+			  -30, 0, 10, 15, 15, 10, 0, -30,
+			  -30, 5, 15, 20, 20, 15, 5, -30,
+			  -30, 0, 15, 20, 20, 15, 0, -30,
+			  -30, 5, 10, 15, 15, 10, 5, -30,
+			  -40, -20, 0, 5, 5, 0, -20, -40,
+			  -50, -40, -30, -30, -30, -30, -40, -50 },
+			{ -20, -10, -10, -10, -10, -10, -10, -20,
+			  -10, 0, 0, 0, 0, 0, 0, -10,
+			  -10, 0, 5, 10, 10, 5, 0, -10,
+			  -10, 5, 5, 10, 10, 5, 5, -10,
+			  -10, 0, 10, 10, 10, 10, 0, -10,
+			  -10, 10, 10, 10, 10, 10, 10, -10,
+			  -10, 5, 0, 0, 0, 0, 5, -10,
+			  -20, -10, -10, -10, -10, -10, -10, -20 },
+			{ 0, 0, 0, 0, 0, 0, 0, 0,
+			  5, 10, 10, 10, 10, 10, 10, 5,
+			  -5, 0, 0, 0, 0, 0, 0, -5,
+			  -5, 0, 0, 0, 0, 0, 0, -5,
+			  -5, 0, 0, 0, 0, 0, 0, -5,
+			  -5, 0, 0, 0, 0, 0, 0, -5,
+			  -5, 0, 0, 0, 0, 0, 0, -5,
+			  0, 0, 0, 5, 5, 0, 0, 0 },
+			{ -20, -10, -10, -5, -5, -10, -10, -20,
+			  -10, 0, 0, 0, 0, 0, 0, -10,
+			  -10, 0, 5, 5, 5, 5, 0, -10,
+			  -5, 0, 5, 5, 5, 5, 0, -5,
+			  0, 0, 5, 5, 5, 5, 0, -5,
+			  -10, 5, 5, 5, 5, 5, 0, -10,
+			  -10, 0, 5, 0, 0, 0, 0, -10,
+			  -20, -10, -10, -5, -5, -10, -10, -20 },
+			{ -30, -40, -40, -50, -50, -40, -40, -30,
+			  -30, -40, -40, -50, -50, -40, -40, -30,
+			  -30, -40, -40, -50, -50, -40, -40, -30,
+			  -30, -40, -40, -50, -50, -40, -40, -30,
+			  -20, -30, -30, -40, -40, -30, -30, -20,
+			  -10, -20, -20, -20, -20, -20, -20, -10,
+			  20, 20, 0, 0, 0, 0, 20, 20,
+			  20, 30, 10, 0, 0, 10, 30, 20 } };
+
+	private static final PieceType[] TYPES = PieceType.values();
+
+	private Evaluator() {
+	}
+
+	public static int evaluate(ChessMatch chessMatch) {
+		ChessBoard board = chessMatch.getBoard();
+		int score = 0;
+
+		for (PieceType type : TYPES) {
+			int[] table = PIECE_SQUARES[type.ordinal()];
+			int value = PIECE_VALUES[type.ordinal()];
+
+			for (long pieces = board.getBitboard(Color.WHITE, type); pieces != 0; pieces &= pieces - 1) {
+				score += value + table[Long.numberOfTrailingZeros(pieces)];
+			}
+
+			// Black reads the same tables mirrored vertically
+			for (long pieces = board.getBitboard(Color.BLACK, type); pieces != 0; pieces &= pieces - 1) {
+				score -= value + table[Long.numberOfTrailingZeros(pieces) ^ 56];
+			}
+		}
+
+		return (chessMatch.getCurrentPlayer() == Color.WHITE) ? score : -score;
+	}
+}
@@ -0,0 +1,161 @@
+package chess.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import chess.ChessMatch;
+import chess.book.OpeningBook;
+import chess.tablebase.Tablebase;
+
+// Lazy SMP: every thread searches its own copy of the position, they only share the transposition table
+public class ParallelSearch {
+	private ChessMatch chessMatch;
+	private TranspositionTable table;
+	private SearchEngine main;
+	private SearchEngine[] helpers;
+	private ExecutorService executor;
+	private OpeningBook book;
+	private Tablebase tablebase;
+
+	public ParallelSearch(ChessMatch chessMatch, int threads) {
+		this(chessMatch, threads, new TranspositionTable(SearchEngine.DEFAULT_TABLE_MEGABYTES));
+	}
+
+	public ParallelSearch(ChessMatch chessMatch, int threads, TranspositionTable table) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("The search needs at least 1 thread");
+		}
+
+		this.chessMatch = chessMatch;
+		this.table = table;
+		this.main = new SearchEngine(chessMatch, table);
+		this.helpers = new SearchEngine[threads - 1];
+
+		for (int i = 0; i < this.helpers.length; i++) {
+			this.helpers[i] = new SearchEngine(chessMatch, table);
+		}
+
+		if (this.helpers.length > 0) {
+			this.executor = Executors.newFixedThreadPool(this.helpers.length, runnable -> {
+				Thread thread = new Thread(runnable, "search-helper");
+
+				thread.setDaemon(true);
+
+				return thread;
+			});
+		}
+	}
+
+	public TranspositionTable getTable() {
+		return table;
+	}
+
+	public OpeningBook getOpeningBook() {
+		return book;
+	}
+
+	public void setOpeningBook(OpeningBook book) {
+		this.book = book;
+	}
+
+	public Tablebase getTablebase() {
+		return tablebase;
+	}
+
+	public void setTablebase(Tablebase tablebase) {
+		this.tablebase = tablebase;
+		this.main.setTablebase(tablebase);
+
+		for (SearchEngine helper : this.helpers) {
+			helper.setTablebase(tablebase);
+		}
+	}
+
+	public int getThreads() {
+		return helpers.length + 1;
+	}
+
+	public void stop() {
+		this.main.stop();
+
+		for (SearchEngine helper : this.helpers) {
+			helper.stop();
+		}
+	}
+
+	public SearchResult bestMove(long timeBudgetMillis) {
+		return bestMove(timeBudgetMillis, SearchEngine.MAX_DEPTH);
+	}
+
+	public SearchResult bestMove(long timeBudgetMillis, int maxDepth) {
+		SearchResult bookMove = SearchEngine.bookMove(this.book, this.chessMatch);
+
+		if (bookMove != null) {
+			return bookMove;
+		}
+
+		SearchResult tablebaseMove = SearchEngine.tablebaseMove(this.tablebase, this.chessMatch);
+
+		if (tablebaseMove != null) {
+			return tablebaseMove;
+		}
+
+		long start = System.nanoTime();
+		List<Future<SearchResult>> futures = new ArrayList<>(this.helpers.length);
+
+		this.table.newSearch();
+		this.main.prepare(this.chessMatch);
+
+		for (int i = 0; i < this.helpers.length; i++) {
+			SearchEngine helper = this.helpers[i];
+			// Half of the helpers start one ply deeper so the threads do not all walk the same tree in step
+			int firstDepth = 1 + (i + 1) % 2;
+
+			helper.prepare(this.chessMatch.copy());
+			futures.add(this.executor.submit(() -> helper.iterate(timeBudgetMillis, firstDepth, maxDepth)));
+		}
+
+		SearchResult best = this.main.iterate(timeBudgetMillis, 1, maxDepth);
+		long nodes = best.getNodes();
+
+		for (SearchEngine helper : this.helpers) {
+			helper.stop();
+		}
+
+		// The deepest completed iteration wins, the main thread on ties
+		for (Future<SearchResult> future : futures) {
+			SearchResult result = join(future);
+
+			nodes += result.getNodes();
+
+			if (result.getDepth() > best.getDepth()) {
+				best = result;
+			}
+		}
+
+		return new SearchResult(best.getMove(), best.getScore(), best.getDepth(), nodes, System.nanoTime() - start);
+	}
+
+	private static SearchResult join(Future<SearchResult> future) {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+
+			throw new IllegalStateException("Interrupted while waiting for a search thread", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("A search thread failed", e.getCause());
+		}
+	}
+
+	public void close() {
+		if (this.executor != null) {
+			this.executor.shutdownNow();
+		}
+	}
+
+}
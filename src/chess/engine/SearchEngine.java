@@ -0,0 +1,465 @@
+package chess.engine;
+
+import java.util.Arrays;
+
+import chess.ChessBoard;
+import chess.ChessMatch;
+import chess.ChessPiece;
+import chess.Move;
+import chess.PieceType;
+import chess.book.OpeningBook;
+import chess.metrics.Metrics;
+import chess.tablebase.Tablebase;
+
+public class SearchEngine {
+	public static final int MAX_DEPTH = 64;
+	public static final int MATE = 32000;
+	public static final int INFINITY = 32767;
+
+	public static final int DEFAULT_TABLE_MEGABYTES = 16;
+
+	private static final int MAX_PLY = 128;
+
+	// Below every mate score: a mate the search can see still beats a tablebase win
+	private static final int TABLEBASE_WIN = MATE - 2 * MAX_PLY;
+	private static final int TIME_CHECK_INTERVAL = 2048;
+
+	private static final int HASH_MOVE_SCORE = 1 << 30;
+	private static final int CAPTURE_SCORE = 1 << 28;
+	private static final int FIRST_KILLER_SCORE = 1 << 27;
+	private static final int SECOND_KILLER_SCORE = FIRST_KILLER_SCORE - 1;
+
+	private ChessMatch chessMatch;
+	private TranspositionTable table;
+	private OpeningBook book;
+	private Tablebase tablebase;
+	private int[][] moves = new int[MAX_PLY][ChessMatch.MAX_MOVES];
+	private int[][] moveScores = new int[MAX_PLY][ChessMatch.MAX_MOVES];
+	private int[][] killers = new int[MAX_PLY][2];
+	private int[][] history = new int[64][64];
+
+	private long nodes;
+	private long deadline;
+	private volatile boolean stopped;
+	private int rootBestMove;
+
+	public SearchEngine(ChessMatch chessMatch) {
+		this(chessMatch, new TranspositionTable(DEFAULT_TABLE_MEGABYTES));
+	}
+
+	public SearchEngine(ChessMatch chessMatch, TranspositionTable table) {
+		this.chessMatch = chessMatch;
+		this.table = table;
+	}
+
+	public TranspositionTable getTable() {
+		return table;
+	}
+
+	public OpeningBook getOpeningBook() {
+		return book;
+	}
+
+	public void setOpeningBook(OpeningBook book) {
+		this.book = book;
+	}
+
+	public Tablebase getTablebase() {
+		return tablebase;
+	}
+
+	public void setTablebase(Tablebase tablebase) {
+		this.tablebase = tablebase;
+	}
+
+	public long getNodes() {
+		return nodes;
+	}
+
+	public void stop() {
+		this.stopped = true;
+	}
+
+	public SearchResult bestMove(long timeBudgetMillis) {
+		return bestMove(timeBudgetMillis, MAX_DEPTH);
+	}
+
+	public SearchResult bestMove(long timeBudgetMillis, int maxDepth) {
+		SearchResult bookMove = bookMove(this.book, this.chessMatch);
+
+		if (bookMove != null) {
+			return bookMove;
+		}
+
+		SearchResult tablebaseMove = tablebaseMove(this.tablebase, this.chessMatch);
+
+		if (tablebaseMove != null) {
+			return tablebaseMove;
+		}
+
+		this.stopped = false;
+		this.table.newSearch();
+
+		return iterate(timeBudgetMillis, 1, maxDepth);
+	}
+
+	// A book move costs no search at all
+	static SearchResult bookMove(OpeningBook book, ChessMatch chessMatch) {
+		int move = (book == null) ? Move.NONE : book.pickMove(chessMatch);
+
+		return (move == Move.NONE) ? null : new SearchResult(move, 0, 0, 0L, 0L);
+	}
+
+	// Covered positions are played straight from the tables
+	static SearchResult tablebaseMove(Tablebase tablebase, ChessMatch chessMatch) {
+		int result = (tablebase == null) ? Tablebase.NONE : tablebase.probe(chessMatch);
+		int move = (result == Tablebase.NONE) ? Move.NONE : tablebase.bestMove(chessMatch);
+
+		return (move == Move.NONE) ? null : new SearchResult(move, tablebaseScore(result, 0), true);
+	}
+
+	private static int tablebaseScore(int result, int ply) {
+		switch (Tablebase.wdl(result)) {
+		case Tablebase.WIN:
+			return TABLEBASE_WIN - ply;
+		case Tablebase.LOSS:
+			return -TABLEBASE_WIN + ply;
+		default:
+			return 0;
+		}
+	}
+
+	// Rebinds a helper engine to its own copy of the position before a parallel search
+	void prepare(ChessMatch chessMatch) {
+		this.chessMatch = chessMatch;
+		this.stopped = false;
+	}
+
+	SearchResult iterate(long timeBudgetMillis, int firstDepth, int maxDepth) {
+		long start = System.nanoTime();
+
+		this.deadline = start + timeBudgetMillis * 1000000L;
+		this.nodes = 0L;
+
+		for (int[] slot : this.killers) {
+			slot[0] = Move.NONE;
+			slot[1] = Move.NONE;
+		}
+
+		for (int[] row : this.history) {
+			Arrays.fill(row, 0);
+		}
+
+		int[] rootMoves = this.moves[0];
+		int count = this.chessMatch.generateLegalMoves(rootMoves);
+
+		if (count == 0) {
+			return new SearchResult(Move.NONE, this.chessMatch.getCheckers() != 0 ? -MATE : 0, 0, 0L, 0L);
+		}
+
+		int bestMove = rootMoves[0];
+		int bestScore = -INFINITY;
+		int completedDepth = 0;
+
+		this.rootBestMove = Move.NONE;
+
+		for (int depth = Math.min(firstDepth, maxDepth); depth <= maxDepth; depth++) {
+			int score = search(depth, -INFINITY, INFINITY, 0);
+
+			if (this.stopped) {
+				break;
+			}
+
+			bestMove = this.rootBestMove;
+			bestScore = score;
+			completedDepth = depth;
+
+			// A forced mate will not change with more depth
+			if (Math.abs(score) >= MATE - MAX_PLY || System.nanoTime() >= this.deadline) {
+				break;
+			}
+		}
+
+		long elapsed = System.nanoTime() - start;
+
+		if (Metrics.ENABLED) {
+			Metrics.recordSearch(this.nodes, elapsed);
+		}
+
+		return new SearchResult(bestMove, bestScore, completedDepth, this.nodes, elapsed);
+	}
+
+	private boolean timeUp() {
+		if ((this.nodes % TIME_CHECK_INTERVAL) == 0 && System.nanoTime() >= this.deadline) {
+			this.stopped = true;
+		}
+
+		return this.stopped;
+	}
+
+	private int search(int depth, int alpha, int beta, int ply) {
+		this.nodes++;
+
+		if (timeUp()) {
+			return 0;
+		}
+
+		if (ply > 0 && (this.chessMatch.isRepetition() || this.chessMatch.getHalfmoveClock() >= 100)) {
+			return 0;
+		}
+
+		// A capture or pawn move may have just brought the position into the tables
+		if (ply > 0 && this.tablebase != null && this.chessMatch.getHalfmoveClock() == 0) {
+			int result = this.tablebase.probe(this.chessMatch);
+
+			if (result != Tablebase.NONE) {
+				return tablebaseScore(result, ply);
+			}
+		}
+
+		boolean inCheck = this.chessMatch.getCheckers() != 0;
+
+		// Check extension, bounded by the ply stack
+		if (inCheck && ply < MAX_PLY / 2) {
+			depth++;
+		}
+
+		if (depth <= 0 || ply >= MAX_PLY - 1) {
+			return quiesce(alpha, beta, ply);
+		}
+
+		long key = this.chessMatch.getZobristKey();
+		long entry = this.table.probe(key);
+		int hashMove = (ply == 0) ? this.rootBestMove : Move.NONE;
+
+		if (entry != TranspositionTable.MISS) {
+			int score = scoreFromTable(TranspositionTable.score(entry), ply);
+			int bound = TranspositionTable.bound(entry);
+
+			if (ply > 0 && TranspositionTable.depth(entry) >= depth && (bound == TranspositionTable.EXACT
+					|| (bound == TranspositionTable.LOWER_BOUND && score >= beta)
+					|| (bound == TranspositionTable.UPPER_BOUND && score <= alpha))) {
+				return score;
+			}
+
+			if (hashMove == Move.NONE) {
+				hashMove = TranspositionTable.move(entry);
+			}
+		}
+
+		int[] moves = this.moves[ply];
+		int count = this.chessMatch.generateLegalMoves(moves);
+
+		if (count == 0) {
+			return inCheck ? -MATE + ply : 0;
+		}
+
+		scoreMoves(ply, count, hashMove);
+
+		int originalAlpha = alpha;
+		int bestScore = -INFINITY;
+		int bestMove = Move.NONE;
+
+		for (int i = 0; i < count; i++) {
+			int move = pickMove(ply, i, count);
+
+			this.chessMatch.makeMove(move);
+			int score = -search(depth - 1, -beta, -alpha, ply + 1);
+			this.chessMatch.unmakeMove();
+
+			if (this.stopped) {
+				return 0;
+			}
+
+			if (score > bestScore) {
+				bestScore = score;
+				bestMove = move;
+
+				if (ply == 0) {
+					this.rootBestMove = move;
+				}
+			}
+
+			if (score > alpha) {
+				alpha = score;
+			}
+
+			if (alpha >= beta) {
+				if (!Move.isCapture(move) && !Move.isPromotion(move)) {
+					storeKiller(ply, move);
+					this.history[Move.from(move)][Move.to(move)] += depth * depth;
+				}
+
+				break;
+			}
+		}
+
+		int bound = (bestScore <= originalAlpha) ? TranspositionTable.UPPER_BOUND
+				: (bestScore >= beta) ? TranspositionTable.LOWER_BOUND : TranspositionTable.EXACT;
+
+		this.table.store(key, bestMove, scoreToTable(bestScore, ply), depth, bound);
+
+		return bestScore;
+	}
+
+	// Mate scores are stored relative to the node, not to the root
+	private static int scoreToTable(int score, int ply) {
+		if (score >= MATE - MAX_PLY) {
+			return score + ply;
+		}
+
+		if (score <= -MATE + MAX_PLY) {
+			return score - ply;
+		}
+
+		return score;
+	}
+
+	private static int scoreFromTable(int score, int ply) {
+		if (score >= MATE - MAX_PLY) {
+			return score - ply;
+		}
+
+		if (score <= -MATE + MAX_PLY) {
+			return score + ply;
+		}
+
+		return score;
+	}
+
+	private int quiesce(int alpha, int beta, int ply) {
+		this.nodes++;
+
+		if (timeUp()) {
+			return 0;
+		}
+
+		// Checked first, a chain of evasions would otherwise run past the move buffers
+		if (ply >= MAX_PLY - 1) {
+			return Evaluator.evaluate(this.chessMatch);
+		}
+
+		boolean inCheck = this.chessMatch.getCheckers() != 0;
+		int bestScore = -INFINITY;
+
+		// Stand pat, unless in check where every evasion has to be tried
+		if (!inCheck) {
+			bestScore = Evaluator.evaluate(this.chessMatch);
+
+			if (bestScore >= beta) {
+				return bestScore;
+			}
+
+			if (bestScore > alpha) {
+				alpha = bestScore;
+			}
+		}
+
+		int[] moves = this.moves[ply];
+		int count = this.chessMatch.generateLegalMoves(moves);
+
+		if (count == 0 && inCheck) {
+			return -MATE + ply;
+		}
+
+		if (!inCheck) {
+			int tactical = 0;
+
+			for (int i = 0; i < count; i++) {
+				if (Move.isCapture(moves[i]) || Move.isPromotion(moves[i])) {
+					moves[tactical++] = moves[i];
+				}
+			}
+
+			count = tactical;
+		}
+
+		scoreMoves(ply, count, Move.NONE);
+
+		for (int i = 0; i < count; i++) {
+			int move = pickMove(ply, i, count);
+
+			this.chessMatch.makeMove(move);
+			int score = -quiesce(-beta, -alpha, ply + 1);
+			this.chessMatch.unmakeMove();
+
+			if (this.stopped) {
+				return 0;
+			}
+
+			if (score > bestScore) {
+				bestScore = score;
+			}
+
+			if (score > alpha) {
+				alpha = score;
+			}
+
+			if (alpha >= beta) {
+				break;
+			}
+		}
+
+		return bestScore;
+	}
+
+	private void scoreMoves(int ply, int count, int hashMove) {
+		ChessBoard board = this.chessMatch.getBoard();
+		int[] moves = this.moves[ply];
+		int[] scores = this.moveScores[ply];
+
+		for (int i = 0; i < count; i++) {
+			int move = moves[i];
+
+			if (move == hashMove) {
+				scores[i] = HASH_MOVE_SCORE;
+			} else if (Move.isCapture(move) || Move.isPromotion(move)) {
+				// MVV-LVA: most valuable victim first, least valuable attacker breaks ties
+				ChessPiece victim = Move.isEnPassant(move) ? null : board.piece(Move.to(move));
+				int victimValue = (victim == null) ? PieceType.PAWN.ordinal() : victim.getType().ordinal();
+				int attackerValue = board.piece(Move.from(move)).getType().ordinal();
+				int promotionValue = Move.isPromotion(move) ? Move.promotion(move).ordinal() : 0;
+
+				scores[i] = CAPTURE_SCORE + (Move.isCapture(move) ? victimValue * 64 : 0) + promotionValue * 8
+						- attackerValue;
+			} else if (move == this.killers[ply][0]) {
+				scores[i] = FIRST_KILLER_SCORE;
+			} else if (move == this.killers[ply][1]) {
+				scores[i] = SECOND_KILLER_SCORE;
+			} else {
+				scores[i] = Math.min(this.history[Move.from(move)][Move.to(move)], SECOND_KILLER_SCORE - 1);
+			}
+		}
+	}
+
+	private int pickMove(int ply, int index, int count) {
+		int[] moves = this.moves[ply];
+		int[] scores = this.moveScores[ply];
+		int best = index;
+
+		// Selection sort step: later moves are often never looked at after a cutoff
+		for (int i = index + 1; i < count; i++) {
+			if (scores[i] > scores[best]) {
+				best = i;
+			}
+		}
+
+		int move = moves[best];
+		int score = scores[best];
+
+		moves[best] = moves[index];
+		scores[best] = scores[index];
+		moves[index] = move;
+		scores[index] = score;
+
+		return move;
+	}
+
+	private void storeKiller(int ply, int move) {
+		if (this.killers[ply][0] != move) {
+			this.killers[ply][1] = this.killers[ply][0];
+			this.killers[ply][0] = move;
+		}
+	}
+
+}
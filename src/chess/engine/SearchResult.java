@@ -0,0 +1,87 @@
+package chess.engine;
+
+import chess.ChessPosition;
+import chess.Move;
+
+public class SearchResult {
+	private int move;
+	private int score;
+	private int depth;
+	private long nodes;
+	private long elapsedNanos;
+	private boolean tablebase;
+
+	public SearchResult(int move, int score, int depth, long nodes, long elapsedNanos) {
+		this.move = move;
+		this.score = score;
+		this.depth = depth;
+		this.nodes = nodes;
+		this.elapsedNanos = elapsedNanos;
+	}
+
+	SearchResult(int move, int score, boolean tablebase) {
+		this(move, score, 0, 0L, 0L);
+
+		this.tablebase = tablebase;
+	}
+
+	public int getMove() {
+		return move;
+	}
+
+	public int getScore() {
+		return score;
+	}
+
+	public int getDepth() {
+		return depth;
+	}
+
+	// Book moves come back without any search behind them
+	public boolean isBookMove() {
+		return this.depth == 0 && this.move != Move.NONE && !this.tablebase;
+	}
+
+	public boolean isTablebaseMove() {
+		return tablebase;
+	}
+
+	public long getNodes() {
+		return nodes;
+	}
+
+	public long getElapsedMillis() {
+		return elapsedNanos / 1000000;
+	}
+
+	public long getNodesPerSecond() {
+		return (elapsedNanos > 0) ? (long) (nodes * 1e9 / elapsedNanos) : 0L;
+	}
+
+	public ChessPosition getSource() {
+		return toChessPosition(Move.from(move));
+	}
+
+	public ChessPosition getTarget() {
+		return toChessPosition(Move.to(move));
+	}
+
+	private static ChessPosition toChessPosition(int square) {
+		return ChessPosition.valueOf(square);
+	}
+
+	@Override
+	public String toString() {
+		if (isBookMove()) {
+			return Move.toString(move) + " book";
+		}
+
+		if (isTablebaseMove()) {
+			return Move.toString(move) + " score " + score + " tablebase";
+		}
+
+		return Move.toString(move) + " score " + score + " depth " + depth + " nodes " + nodes + " nps "
+				+ getNodesPerSecond();
+	}
+
+}
@@ -0,0 +1,153 @@
+package chess.engine;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+public class TranspositionTable {
+	public static final int UPPER_BOUND = 1;
+	public static final int LOWER_BOUND = 2;
+	public static final int EXACT = 3;
+
+	public static final long MISS = 0L;
+
+	// A bucket holds a depth-preferred entry and an always-replace entry, two longs each
+	private static final int BUCKET_LONGS = 4;
+	private static final int BUCKET_BYTES = BUCKET_LONGS * Long.BYTES;
+	private static final int FILL_SAMPLE_ENTRIES = 1000;
+
+	private static final int MOVE_BITS = 20;
+	private static final int SCORE_SHIFT = MOVE_BITS;
+	private static final int DEPTH_SHIFT = SCORE_SHIFT + 16;
+	private static final int BOUND_SHIFT = DEPTH_SHIFT + 8;
+	private static final int GENERATION_SHIFT = BOUND_SHIFT + 2;
+
+	private long[] table;
+	private int bucketMask;
+	private volatile int generation;
+
+	private LongAdder probes = new LongAdder();
+	private LongAdder hits = new LongAdder();
+	private LongAdder stores = new LongAdder();
+
+	public TranspositionTable(int megabytes) {
+		if (megabytes < 1) {
+			throw new IllegalArgumentException("The transposition table needs at least 1 MB");
+		}
+
+		// Java arrays are int indexed, which caps a single table at 2^28 buckets (8 GB)
+		long buckets = Math.min(Long.highestOneBit(megabytes * 1024L * 1024L / BUCKET_BYTES), 1L << 28);
+
+		this.table = new long[(int) buckets * BUCKET_LONGS];
+		this.bucketMask = (int) buckets - 1;
+	}
+
+	public static int move(long data) {
+		return (int) (data & ((1L << MOVE_BITS) - 1));
+	}
+
+	public static int score(long data) {
+		return (short) (data >>> SCORE_SHIFT);
+	}
+
+	public static int depth(long data) {
+		return (int) ((data >>> DEPTH_SHIFT) & 0xFF);
+	}
+
+	public static int bound(long data) {
+		return (int) ((data >>> BOUND_SHIFT) & 3);
+	}
+
+	private static int generation(long data) {
+		return (int) ((data >>> GENERATION_SHIFT) & 0xFF);
+	}
+
+	public void clear() {
+		Arrays.fill(this.table, 0L);
+		this.probes.reset();
+		this.hits.reset();
+		this.stores.reset();
+	}
+
+	public void newSearch() {
+		this.generation = (this.generation + 1) & 0xFF;
+	}
+
+	public long probe(long key) {
+		int index = bucketIndex(key);
+
+		this.probes.increment();
+
+		for (int i = index; i < index + BUCKET_LONGS; i += 2) {
+			long data = this.table[i + 1];
+
+			// Lockless verification: a torn write from another thread fails the XOR check
+			if ((this.table[i] ^ data) == key && data != 0) {
+				this.hits.increment();
+
+				return data;
+			}
+		}
+
+		return MISS;
+	}
+
+	public void store(long key, int move, int score, int depth, int bound) {
+		int index = bucketIndex(key);
+		long data = (move & ((1L << MOVE_BITS) - 1)) | ((score & 0xFFFFL) << SCORE_SHIFT)
+				| ((long) Math.min(depth, 0xFF) << DEPTH_SHIFT) | ((long) bound << BOUND_SHIFT)
+				| ((long) this.generation << GENERATION_SHIFT);
+		long preferred = this.table[index + 1];
+		int slot = index + 2;
+
+		if (preferred == 0 || (this.table[index] ^ preferred) == key || depth >= depth(preferred)
+				|| generation(preferred) != this.generation) {
+			slot = index;
+		}
+
+		this.table[slot] = key ^ data;
+		this.table[slot + 1] = data;
+		this.stores.increment();
+	}
+
+	private int bucketIndex(long key) {
+		return ((int) (key >>> 32) & this.bucketMask) * BUCKET_LONGS;
+	}
+
+	public long getProbes() {
+		return probes.sum();
+	}
+
+	public long getHits() {
+		return hits.sum();
+	}
+
+	public long getStores() {
+		return stores.sum();
+	}
+
+	public double getHitRate() {
+		long probes = getProbes();
+
+		return (probes == 0) ? 0.0 : (double) getHits() / probes;
+	}
+
+	public int getFillPermille() {
+		int sampled = Math.min(FILL_SAMPLE_ENTRIES, this.table.length / 2);
+		int used = 0;
+
+		for (int i = 0; i < sampled; i++) {
+			long data = this.table[i * 2 + 1];
+
+			if (data != 0 && generation(data) == this.generation) {
+				used++;
+			}
+		}
+
+		return used * 1000 / sampled;
+	}
+
+	public int getSizeMegabytes() {
+		return (int) ((long) this.table.length * Long.BYTES / (1024 * 1024));
+	}
+
+}
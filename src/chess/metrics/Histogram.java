@@ -0,0 +1,112 @@
+package chess.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Log-linear buckets in the style of HdrHistogram: every power of two is split into 16 sub-buckets, so any value is
+// known to within about 6% while the whole long range fits in under a thousand counters. Recording never locks.
+public class Histogram {
+	private static final int SUB_BITS = 4;
+	private static final int SUB_BUCKETS = 1 << SUB_BITS;
+	private static final int BUCKETS = (64 - SUB_BITS + 1) * SUB_BUCKETS;
+
+	private String name;
+	private AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+	private LongAdder count = new LongAdder();
+	private LongAdder sum = new LongAdder();
+	private AtomicLong max = new AtomicLong();
+
+	public Histogram(String name) {
+		this.name = name;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public void record(long value) {
+		value = Math.max(value, 0L);
+
+		this.buckets.incrementAndGet(index(value));
+		this.count.increment();
+		this.sum.add(value);
+
+		for (long max = this.max.get(); value > max && !this.max.compareAndSet(max, value);) {
+			max = this.max.get();
+		}
+	}
+
+	// Values below 16 get a bucket each, above that the top five bits pick the bucket
+	private static int index(long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+
+		return (exponent - SUB_BITS + 1) * SUB_BUCKETS + (int) ((value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1));
+	}
+
+	private static long highestValue(int index) {
+		if (index < SUB_BUCKETS) {
+			return index;
+		}
+
+		int shift = index / SUB_BUCKETS - 1;
+		long lowest = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+
+		return lowest + (1L << shift) - 1;
+	}
+
+	public long getCount() {
+		return count.sum();
+	}
+
+	public long getSum() {
+		return sum.sum();
+	}
+
+	public long getMax() {
+		return max.get();
+	}
+
+	public double getMean() {
+		long count = getCount();
+
+		return (count == 0) ? 0.0 : (double) getSum() / count;
+	}
+
+	// Reads the buckets without stopping writers, so a snapshot taken under load is only close to exact
+	public long getValueAtPercentile(double percentile) {
+		long total = 0L;
+
+		for (int i = 0; i < BUCKETS; i++) {
+			total += this.buckets.get(i);
+		}
+
+		long rank = Math.max(1L, (long) Math.ceil(total * percentile / 100.0));
+		long seen = 0L;
+
+		for (int i = 0; i < BUCKETS && total > 0; i++) {
+			seen += this.buckets.get(i);
+
+			if (seen >= rank) {
+				return Math.min(highestValue(i), getMax());
+			}
+		}
+
+		return 0L;
+	}
+
+	public void reset() {
+		for (int i = 0; i < BUCKETS; i++) {
+			this.buckets.set(i, 0L);
+		}
+
+		this.count.reset();
+		this.sum.reset();
+		this.max.set(0L);
+	}
+
+}
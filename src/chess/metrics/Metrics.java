@@ -0,0 +1,95 @@
+package chess.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+import chess.PieceType;
+
+// Phase timings for ChessMatch and node counts for the search. Switched on with -Dchess.metrics=true; ENABLED is a
+// constant, so with metrics off the JIT drops every guarded call and the hot paths pay nothing.
+public final class Metrics {
+	public static final boolean ENABLED = Boolean.getBoolean("chess.metrics");
+
+	// The phases of performChessMove, in nanoseconds
+	public static final Histogram VALIDATE = new Histogram("validate");
+	public static final Histogram MAKE_MOVE = new Histogram("make_move");
+	public static final Histogram TEST_CHECK = new Histogram("test_check");
+	public static final Histogram GAME_STATE = new Histogram("game_state");
+	public static final Histogram PERFORM_MOVE = new Histogram("perform_move");
+	public static final Histogram PROMOTION = new Histogram("promotion");
+
+	private static final Histogram[] POSSIBLE_MOVES = new Histogram[PieceType.values().length];
+	private static final List<Histogram> HISTOGRAMS = new ArrayList<>();
+
+	private static final LongAdder SEARCHES = new LongAdder();
+	private static final LongAdder SEARCH_NODES = new LongAdder();
+	private static final LongAdder SEARCH_NANOS = new LongAdder();
+
+	static {
+		Collections.addAll(HISTOGRAMS, VALIDATE, MAKE_MOVE, TEST_CHECK, GAME_STATE, PERFORM_MOVE, PROMOTION);
+
+		for (PieceType type : PieceType.values()) {
+			POSSIBLE_MOVES[type.ordinal()] = new Histogram("possible_moves_" + type.name().toLowerCase());
+			HISTOGRAMS.add(POSSIBLE_MOVES[type.ordinal()]);
+		}
+	}
+
+	private Metrics() {
+	}
+
+	public static Histogram possibleMoves(PieceType type) {
+		return POSSIBLE_MOVES[type.ordinal()];
+	}
+
+	public static List<Histogram> histograms() {
+		return Collections.unmodifiableList(HISTOGRAMS);
+	}
+
+	// Records the time since start and returns now, the start of the next phase
+	public static long record(Histogram histogram, long start) {
+		long now = System.nanoTime();
+
+		histogram.record(now - start);
+
+		return now;
+	}
+
+	// Per search thread, a parallel search records each of its threads
+	public static void recordSearch(long nodes, long nanos) {
+		SEARCHES.increment();
+		SEARCH_NODES.add(nodes);
+		SEARCH_NANOS.add(nanos);
+	}
+
+	public static long getSearchCount() {
+		return SEARCHES.sum();
+	}
+
+	public static long getSearchNodes() {
+		return SEARCH_NODES.sum();
+	}
+
+	public static long getSearchNanos() {
+		return SEARCH_NANOS.sum();
+	}
+
+	// Nodes per second of search thread time
+	public static double getSearchNodesPerSecond() {
+		long nanos = getSearchNanos();
+
+		return (nanos == 0) ? 0.0 : getSearchNodes() * 1e9 / nanos;
+	}
+
+	public static void reset() {
+		for (Histogram histogram : HISTOGRAMS) {
+			histogram.reset();
+		}
+
+		SEARCHES.reset();
+		SEARCH_NODES.reset();
+		SEARCH_NANOS.reset();
+	}
+
+}
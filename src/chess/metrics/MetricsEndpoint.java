@@ -0,0 +1,82 @@
+package chess.metrics;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+// Serves GET /metrics on the loopback interface in the Prometheus text format, for a local scraper to pull
+public class MetricsEndpoint implements Closeable {
+	public static final String PATH = "/metrics";
+
+	private static final double[] QUANTILES = { 0.5, 0.9, 0.99, 0.999 };
+
+	private HttpServer server;
+
+	public MetricsEndpoint(int port) throws IOException {
+		this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+		this.server.createContext(PATH, this::handle);
+		this.server.start();
+	}
+
+	public int getPort() {
+		return server.getAddress().getPort();
+	}
+
+	@Override
+	public void close() {
+		this.server.stop(0);
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		byte[] body = format().getBytes(StandardCharsets.UTF_8);
+
+		exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+		exchange.sendResponseHeaders(200, body.length);
+
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(body);
+		}
+	}
+
+	public static String format() {
+		StringBuilder sb = new StringBuilder(4096);
+
+		sb.append("# TYPE chess_phase_seconds summary\n");
+
+		for (Histogram histogram : Metrics.histograms()) {
+			String labels = "{phase=\"" + histogram.getName() + "\"";
+
+			for (double quantile : QUANTILES) {
+				sample(sb, "chess_phase_seconds", labels + ",quantile=\"" + quantile + "\"}",
+						histogram.getValueAtPercentile(quantile * 100) / 1e9);
+			}
+
+			sample(sb, "chess_phase_seconds_sum", labels + "}", histogram.getSum() / 1e9);
+			sample(sb, "chess_phase_seconds_count", labels + "}", histogram.getCount());
+		}
+
+		sb.append("# TYPE chess_search_total counter\n");
+		sample(sb, "chess_search_total", "", Metrics.getSearchCount());
+		sb.append("# TYPE chess_search_nodes_total counter\n");
+		sample(sb, "chess_search_nodes_total", "", Metrics.getSearchNodes());
+		sb.append("# TYPE chess_search_seconds_total counter\n");
+		sample(sb, "chess_search_seconds_total", "", Metrics.getSearchNanos() / 1e9);
+
+		return sb.toString();
+	}
+
+	private static void sample(StringBuilder sb, String name, String labels, double value) {
+		sb.append(name).append(labels).append(' ').append(value).append('\n');
+	}
+
+	private static void sample(StringBuilder sb, String name, String labels, long value) {
+		sb.append(name).append(labels).append(' ').append(value).append('\n');
+	}
+
+}
@@ -0,0 +1,111 @@
+package chess.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+
+// The metrics as read-only JMX attributes, "make_move.p99" and so on, plus a reset operation
+public class MetricsMBean implements DynamicMBean {
+	public static final String OBJECT_NAME = "chess:type=Metrics";
+
+	private Map<String, Supplier<Object>> attributes = new LinkedHashMap<>();
+
+	public MetricsMBean() {
+		for (Histogram histogram : Metrics.histograms()) {
+			String name = histogram.getName();
+
+			this.attributes.put(name + ".count", histogram::getCount);
+			this.attributes.put(name + ".mean", histogram::getMean);
+			this.attributes.put(name + ".p50", () -> histogram.getValueAtPercentile(50));
+			this.attributes.put(name + ".p99", () -> histogram.getValueAtPercentile(99));
+			this.attributes.put(name + ".p999", () -> histogram.getValueAtPercentile(99.9));
+			this.attributes.put(name + ".max", histogram::getMax);
+		}
+
+		this.attributes.put("search.count", Metrics::getSearchCount);
+		this.attributes.put("search.nodes", Metrics::getSearchNodes);
+		this.attributes.put("search.nps", Metrics::getSearchNodesPerSecond);
+	}
+
+	public static void register() throws JMException {
+		ManagementFactory.getPlatformMBeanServer().registerMBean(new MetricsMBean(), new ObjectName(OBJECT_NAME));
+	}
+
+	@Override
+	public Object getAttribute(String attribute) throws AttributeNotFoundException {
+		Supplier<Object> supplier = this.attributes.get(attribute);
+
+		if (supplier == null) {
+			throw new AttributeNotFoundException(attribute);
+		}
+
+		return supplier.get();
+	}
+
+	@Override
+	public AttributeList getAttributes(String[] attributes) {
+		AttributeList list = new AttributeList();
+
+		for (String attribute : attributes) {
+			Supplier<Object> supplier = this.attributes.get(attribute);
+
+			if (supplier != null) {
+				list.add(new Attribute(attribute, supplier.get()));
+			}
+		}
+
+		return list;
+	}
+
+	@Override
+	public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+		throw new AttributeNotFoundException("Metrics are read-only: " + attribute.getName());
+	}
+
+	@Override
+	public AttributeList setAttributes(AttributeList attributes) {
+		return new AttributeList();
+	}
+
+	@Override
+	public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+		if (actionName.equals("reset")) {
+			Metrics.reset();
+			return null;
+		}
+
+		throw new ReflectionException(new NoSuchMethodException(actionName));
+	}
+
+	@Override
+	public MBeanInfo getMBeanInfo() {
+		List<MBeanAttributeInfo> infos = new ArrayList<>();
+
+		for (Map.Entry<String, Supplier<Object>> entry : this.attributes.entrySet()) {
+			String type = (entry.getKey().endsWith(".mean") || entry.getKey().endsWith(".nps")) ? "double" : "long";
+
+			infos.add(new MBeanAttributeInfo(entry.getKey(), type, "Nanoseconds for timings", true, false, false));
+		}
+
+		MBeanOperationInfo reset = new MBeanOperationInfo("reset", "Clears every metric", null, "void",
+				MBeanOperationInfo.ACTION);
+
+		return new MBeanInfo(getClass().getName(), "Chess match and search metrics",
+				infos.toArray(new MBeanAttributeInfo[0]), null, new MBeanOperationInfo[] { reset }, null);
+	}
+
+}
@@ -0,0 +1,81 @@
+package chess.pgn;
+
+import java.util.Arrays;
+
+// One game of an archive, reused from game to game so reading allocates nothing once the buffers have grown
+public class PgnGame {
+	private long number;
+	private int line;
+	private StringBuilder fen = new StringBuilder();
+	private StringBuilder result = new StringBuilder();
+	private StringBuilder moveText = new StringBuilder();
+	private int[] moveEnds = new int[256];
+	private int moveCount;
+
+	public long getNumber() {
+		return number;
+	}
+
+	public int getLine() {
+		return line;
+	}
+
+	public boolean hasFen() {
+		return this.fen.length() > 0;
+	}
+
+	public CharSequence getFen() {
+		return fen;
+	}
+
+	public CharSequence getResult() {
+		return result;
+	}
+
+	public int getMoveCount() {
+		return moveCount;
+	}
+
+	// The SAN moves are kept back to back in one buffer, move i spans [getMoveStart(i), getMoveEnd(i))
+	public CharSequence getMoveText() {
+		return moveText;
+	}
+
+	public int getMoveStart(int index) {
+		return (index == 0) ? 0 : this.moveEnds[index - 1];
+	}
+
+	public int getMoveEnd(int index) {
+		return this.moveEnds[index];
+	}
+
+	void clear(long number, int line) {
+		this.number = number;
+		this.line = line;
+		this.fen.setLength(0);
+		this.result.setLength(0);
+		this.moveText.setLength(0);
+		this.moveCount = 0;
+	}
+
+	StringBuilder fen() {
+		return fen;
+	}
+
+	StringBuilder result() {
+		return result;
+	}
+
+	StringBuilder moveText() {
+		return moveText;
+	}
+
+	void endMove() {
+		if (this.moveCount == this.moveEnds.length) {
+			this.moveEnds = Arrays.copyOf(this.moveEnds, this.moveCount * 2);
+		}
+
+		this.moveEnds[this.moveCount++] = this.moveText.length();
+	}
+
+}
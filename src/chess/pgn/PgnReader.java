@@ -0,0 +1,239 @@
+package chess.pgn;
+
+import java.io.IOException;
+import java.io.Reader;
+
+// Streaming PGN parser: one game at a time, comments, variations and NAGs are skipped
+public class PgnReader {
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private Reader reader;
+	private char[] buffer = new char[BUFFER_SIZE];
+	private int position;
+	private int limit;
+	private int line = 1;
+	private long games;
+	private StringBuilder tagName = new StringBuilder();
+
+	public PgnReader(Reader reader) {
+		this.reader = reader;
+	}
+
+	public int getLine() {
+		return line;
+	}
+
+	public boolean next(PgnGame game) throws IOException {
+		if (skipSpaces() < 0) {
+			return false;
+		}
+
+		game.clear(++this.games, this.line);
+
+		boolean moveText = false;
+
+		for (int c = skipSpaces(); c >= 0; c = skipSpaces()) {
+			switch (c) {
+			case '[':
+				// Without a result token a game ends where the tags of the next one start
+				if (moveText) {
+					return true;
+				}
+
+				readTag(game);
+				break;
+			case '{':
+				skipUntil('}');
+				break;
+			case ';':
+			case '%':
+				skipUntil('\n');
+				break;
+			case '(':
+				skipVariation();
+				break;
+			case ')':
+			case '}':
+			case ']':
+				// Stray closing brackets are skipped one at a time
+				read();
+				break;
+			default:
+				moveText = true;
+
+				if (readToken(game)) {
+					return true;
+				}
+			}
+		}
+
+		return true;
+	}
+
+	private int peek() throws IOException {
+		if (this.position == this.limit) {
+			this.limit = this.reader.read(this.buffer, 0, this.buffer.length);
+			this.position = 0;
+
+			if (this.limit <= 0) {
+				this.limit = 0;
+
+				return -1;
+			}
+		}
+
+		return this.buffer[this.position];
+	}
+
+	private int read() throws IOException {
+		int c = peek();
+
+		if (c >= 0) {
+			this.position++;
+
+			if (c == '\n') {
+				this.line++;
+			}
+		}
+
+		return c;
+	}
+
+	private int skipSpaces() throws IOException {
+		int c = peek();
+
+		while (c >= 0 && Character.isWhitespace(c)) {
+			read();
+			c = peek();
+		}
+
+		return c;
+	}
+
+	private void skipUntil(char end) throws IOException {
+		int c = read();
+
+		while (c >= 0 && c != end) {
+			c = read();
+		}
+	}
+
+	private void skipVariation() throws IOException {
+		int depth = 0;
+
+		for (int c = read(); c >= 0; c = read()) {
+			if (c == '(') {
+				depth++;
+			} else if (c == ')' && --depth == 0) {
+				return;
+			} else if (c == '{') {
+				skipUntil('}');
+			} else if (c == ';') {
+				skipUntil('\n');
+			}
+		}
+	}
+
+	private void readTag(PgnGame game) throws IOException {
+		read();
+		skipSpaces();
+		this.tagName.setLength(0);
+
+		for (int c = peek(); c >= 0 && c != '"' && c != ']' && !Character.isWhitespace(c); c = peek()) {
+			this.tagName.append((char) read());
+		}
+
+		// Only the tags needed to replay and check a game are kept
+		StringBuilder value = null;
+
+		if ("FEN".contentEquals(this.tagName)) {
+			value = game.fen();
+		} else if ("Result".contentEquals(this.tagName)) {
+			value = game.result();
+		}
+
+		if (skipSpaces() == '"') {
+			read();
+
+			for (int c = read(); c >= 0 && c != '"'; c = read()) {
+				if (c == '\\') {
+					c = read();
+				}
+
+				if (value != null && c >= 0) {
+					value.append((char) c);
+				}
+			}
+		}
+
+		skipUntil(']');
+	}
+
+	// Returns true when the token is the game termination marker
+	private boolean readToken(PgnGame game) throws IOException {
+		StringBuilder text = game.moveText();
+		int start = text.length();
+
+		for (int c = peek(); c >= 0 && !Character.isWhitespace(c) && "{}()[];".indexOf(c) < 0; c = peek()) {
+			text.append((char) read());
+		}
+
+		int end = text.length();
+
+		if (isResult(text, start, end)) {
+			if (game.result().length() == 0) {
+				game.result().append(text, start, end);
+			}
+
+			text.setLength(start);
+
+			return true;
+		}
+
+		// Move numbers such as "12." or "12..." may be glued to the move that follows them
+		int digits = start;
+
+		while (digits < end && Character.isDigit(text.charAt(digits))) {
+			digits++;
+		}
+
+		int dots = digits;
+
+		while (dots < end && text.charAt(dots) == '.') {
+			dots++;
+		}
+
+		if (dots > digits) {
+			text.delete(start, dots);
+		}
+
+		// NAGs and the informal "e.p." suffix are not moves
+		if (text.length() == start || text.charAt(start) == '$' || regionEquals(text, start, text.length(), "e.p.")) {
+			text.setLength(start);
+		} else {
+			game.endMove();
+		}
+
+		return false;
+	}
+
+	private static boolean isResult(CharSequence text, int start, int end) {
+		return regionEquals(text, start, end, "1-0") || regionEquals(text, start, end, "0-1")
+				|| regionEquals(text, start, end, "1/2-1/2") || regionEquals(text, start, end, "*");
+	}
+
+	private static boolean regionEquals(CharSequence text, int start, int end, String value) {
+		if (end - start != value.length()) {
+			return false;
+		}
+
+		for (int i = 0; i < value.length(); i++) {
+			if (text.charAt(start + i) != value.charAt(i)) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+}
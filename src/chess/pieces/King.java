@@ -1,10 +1,13 @@
 package chess.pieces;
 
 import boardgame.Board;
-import boardgame.Position;
+import chess.Attacks;
+import chess.ChessBoard;
 import chess.ChessMatch;
 import chess.ChessPiece;
 import chess.Color;
+import chess.Move;
+import chess.PieceType;
 
 public class King extends ChessPiece {
 	private ChessMatch chessMatch;
@@ -14,101 +17,67 @@ public class King extends ChessPiece {
 		this.chessMatch = chessMatch;
 	}
 
-	private boolean canMove(Position position) {
-		ChessPiece p = (ChessPiece) getBoard().piece(position);
+	private boolean testRookCastling(int square) {
+		ChessPiece p = getChessBoard().piece(square);
 
-		return p == null || p.getColor() != getColor();
+		return p != null && p instanceof Rook && p.getColor() == getColor();
 	}
 
-	private boolean testRookCastling(Position position) {
-		ChessPiece p = (ChessPiece) getBoard().piece(position);
-
-		return p != null && p instanceof Rook && p.getColor() == getColor() && p.getMoveCount() == 0;
+	private long stepTargets() {
+		return Attacks.kingAttacks(getSquare()) & ~getChessBoard().getOccupancy(getColor());
 	}
 
-	@Override
-	public boolean[][] possibleMoves() {
-		boolean[][] mat = new boolean[getBoard().getRows()][getBoard().getColumns()];
-		Position p = new Position(0, 0);
-
-		// Above
-		p.setValues(position.getRow() - 1, position.getColumn());
-		if (getBoard().positionExists(p) && canMove(p)) {
-			mat[p.getRow()][p.getColumn()] = true;
-		}
-
-		// Northwest (NW)
-		p.setValues(position.getRow() - 1, position.getColumn() - 1);
-		if (getBoard().positionExists(p) && canMove(p)) {
-			mat[p.getRow()][p.getColumn()] = true;
-		}
-
-		// Left
-		p.setValues(position.getRow() - 1, position.getColumn());
-		if (getBoard().positionExists(p) && canMove(p)) {
-			mat[p.getRow()][p.getColumn()] = true;
-		}
+	private long castlingTargets() {
+		ChessBoard board = getChessBoard();
+		int square = getSquare();
+		long occupancy = board.getOccupancy();
+		int rights = chessMatch.getCastlingRights();
+		int kingside = (getColor() == Color.WHITE) ? ChessMatch.WHITE_KINGSIDE : ChessMatch.BLACK_KINGSIDE;
+		int queenside = (getColor() == Color.WHITE) ? ChessMatch.WHITE_QUEENSIDE : ChessMatch.BLACK_QUEENSIDE;
+		int home = ChessBoard.square((getColor() == Color.WHITE) ? 7 : 0, 4);
+		long targets = 0L;
 
-		// South-west (SW)
-		p.setValues(position.getRow() + 1, position.getColumn() - 1);
-		if (getBoard().positionExists(p) && canMove(p)) {
-			mat[p.getRow()][p.getColumn()] = true;
-		}
-
-		// Below
-		p.setValues(position.getRow(), position.getColumn() - 1);
-		if (getBoard().positionExists(p) && canMove(p)) {
-			mat[p.getRow()][p.getColumn()] = true;
-		}
-
-		// Southeast (SE)
-		p.setValues(position.getRow() + 1, position.getColumn() + 1);
-		if (getBoard().positionExists(p) && canMove(p)) {
-			mat[p.getRow()][p.getColumn()] = true;
-		}
-
-		// Right
-		p.setValues(position.getRow(), position.getColumn() + 1);
-		if (getBoard().positionExists(p) && canMove(p)) {
-			mat[p.getRow()][p.getColumn()] = true;
-		}
+		// #Special move castling
+		if (square == home && (rights & (kingside | queenside)) != 0 && !board.isSquareAttacked(square, opponent())) {
+			// #Special move castling kingside rook
+			if ((rights & kingside) != 0 && testRookCastling(square + 3) && (occupancy & (3L << (square + 1))) == 0
+					&& !board.isSquareAttacked(square + 1, opponent())
+					&& !board.isSquareAttacked(square + 2, opponent())) {
+				targets |= 1L << (square + 2);
+			}
 
-		// Northest (NE)
-		p.setValues(position.getRow() - 1, position.getColumn() + 1);
-		if (getBoard().positionExists(p) && canMove(p)) {
-			mat[p.getRow()][p.getColumn()] = true;
+			// #Special move castling queenside rook
+			if ((rights & queenside) != 0 && testRookCastling(square - 4) && (occupancy & (7L << (square - 3))) == 0
+					&& !board.isSquareAttacked(square - 1, opponent())
+					&& !board.isSquareAttacked(square - 2, opponent())) {
+				targets |= 1L << (square - 2);
+			}
 		}
 
-		// #Special move castling
-		if (getMoveCount() == 0 && !chessMatch.isCheck()) {
-			// #Special move castling kingside rook
-			Position positionTower1 = new Position(position.getRow(), position.getColumn() + 3);
+		return targets;
+	}
 
-			if (testRookCastling(positionTower1)) {
-				Position position1 = new Position(position.getRow(), position.getColumn() + 1);
-				Position position2 = new Position(position.getRow(), position.getColumn() + 2);
+	@Override
+	public PieceType getType() {
+		return PieceType.KING;
+	}
 
-				if (getBoard().piece(position1) == null && getBoard().piece(position2) == null) {
-					mat[position.getRow()][position.getColumn() + 2] = true;
-				}
-			}
+	@Override
+	public long targets() {
+		return stepTargets() | castlingTargets();
+	}
 
-			// #Special move castling queenside rook
-			Position positionTower2 = new Position(position.getRow(), position.getColumn() - 4);
+	@Override
+	public int generateMoves(int[] moves, int count) {
+		int from = getSquare();
 
-			if (testRookCastling(positionTower2)) {
-				Position position1 = new Position(position.getRow(), position.getColumn() - 1);
-				Position position2 = new Position(position.getRow(), position.getColumn() - 2);
-				Position position3 = new Position(position.getRow(), position.getColumn() - 3);
+		count = addMoves(moves, count, from, stepTargets());
 
-				if (getBoard().piece(position1) == null && getBoard().piece(position2) == null
-						&& getBoard().piece(position3) == null) {
-					mat[position.getRow()][position.getColumn() - 2] = true;
-				}
-			}
+		for (long targets = castlingTargets(); targets != 0; targets &= targets - 1) {
+			moves[count++] = Move.encode(from, Long.numberOfTrailingZeros(targets), Move.CASTLING);
 		}
 
-		return mat;
+		return count;
 	}
 
 	@Override
@@ -116,4 +85,4 @@ public class King extends ChessPiece {
 		return "K";
 	}
 
-}
\ No newline at end of file
+}
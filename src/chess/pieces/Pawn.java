@@ -1,12 +1,18 @@
 package chess.pieces;
 
 import boardgame.Board;
-import boardgame.Position;
+import chess.Attacks;
+import chess.ChessBoard;
 import chess.ChessMatch;
 import chess.ChessPiece;
 import chess.Color;
+import chess.Move;
+import chess.PieceType;
 
 public class Pawn extends ChessPiece {
+	private static final PieceType[] PROMOTIONS = { PieceType.QUEEN, PieceType.ROOK, PieceType.BISHOP,
+			PieceType.KNIGHT };
+
 	private ChessMatch chessMatch;
 
 	public Pawn(Board board, Color color, ChessMatch chessMatch) {
@@ -14,102 +20,75 @@ public class Pawn extends ChessPiece {
 		this.chessMatch = chessMatch;
 	}
 
-	@Override
-	public boolean[][] possibleMoves() {
-		boolean[][] mat = new boolean[getBoard().getRows()][getBoard().getColumns()];
-		Position p = new Position(0, 0);
-
-		if (getColor() == Color.WHITE) {
-			p.setValues(position.getRow() - 1, position.getColumn());
-
-			if (getBoard().positionExists(p) && !getBoard().thereIsAPiece(p)) {
-				mat[p.getRow()][p.getColumn()] = true;
-			}
-
-			p.setValues(position.getRow() - 2, position.getColumn());
-
-			Position p2 = new Position(position.getRow() - 1, position.getColumn());
-
-			if (getBoard().positionExists(p) && !getBoard().thereIsAPiece(p) && getBoard().positionExists(p2)
-					&& !getBoard().thereIsAPiece(p2) && getMoveCount() == 0) {
-				mat[p.getRow()][p.getColumn()] = true;
-			}
-
-			p.setValues(position.getRow() - 1, position.getColumn() - 1);
-
-			if (getBoard().positionExists(p) && isThereOpponentPiece(p)) {
-				mat[p.getRow()][p.getColumn()] = true;
-			}
-
-			p.setValues(position.getRow() - 1, position.getColumn() + 1);
-
-			if (getBoard().positionExists(p) && isThereOpponentPiece(p)) {
-				mat[p.getRow()][p.getColumn()] = true;
-			}
-
-			// #Special move en passant WHITE
-			if (position.getRow() == 3) {
-				Position left = new Position(position.getRow(), position.getColumn() - 1);
-
-				if (getBoard().positionExists(left) && isThereOpponentPiece(left)
-						&& getBoard().piece(left) == chessMatch.getEnPassantVulnerable()) {
-					mat[left.getRow() - 1][left.getColumn()] = true;
-				}
+	private int forward() {
+		return (getColor() == Color.WHITE) ? -8 : 8;
+	}
 
-				Position right = new Position(position.getRow(), position.getColumn() + 1);
+	private long enPassantTarget() {
+		// #Special move en passant
+		int square = chessMatch.getEnPassantSquare();
 
-				if (getBoard().positionExists(right) && isThereOpponentPiece(right)
-						&& getBoard().piece(right) == chessMatch.getEnPassantVulnerable()) {
-					mat[right.getRow() - 1][right.getColumn()] = true;
-				}
-			}
-		} else {
-			p.setValues(position.getRow() + 1, position.getColumn());
+		if (square < 0 || ChessBoard.row(square) != ((getColor() == Color.WHITE) ? 2 : 5)) {
+			return 0L;
+		}
 
-			if (getBoard().positionExists(p) && !getBoard().thereIsAPiece(p)) {
-				mat[p.getRow()][p.getColumn()] = true;
-			}
+		return Attacks.pawnAttacks(getColor(), getSquare()) & (1L << square);
+	}
 
-			p.setValues(position.getRow() + 2, position.getColumn());
+	@Override
+	public PieceType getType() {
+		return PieceType.PAWN;
+	}
 
-			Position p2 = new Position(position.getRow() + 1, position.getColumn());
+	@Override
+	public long targets() {
+		ChessBoard board = getChessBoard();
+		int square = getSquare();
+		int forward = forward();
+		long targets = Attacks.pawnAttacks(getColor(), square) & board.getOccupancy(opponent());
+		int oneStep = square + forward;
 
-			if (getBoard().positionExists(p) && !getBoard().thereIsAPiece(p) && getBoard().positionExists(p2)
-					&& !getBoard().thereIsAPiece(p2) && getMoveCount() == 0) {
-				mat[p.getRow()][p.getColumn()] = true;
-			}
+		if (oneStep >= 0 && oneStep < 64 && (board.getOccupancy() & (1L << oneStep)) == 0) {
+			targets |= 1L << oneStep;
 
-			p.setValues(position.getRow() + 1, position.getColumn() - 1);
+			int twoSteps = oneStep + forward;
 
-			if (getBoard().positionExists(p) && isThereOpponentPiece(p)) {
-				mat[p.getRow()][p.getColumn()] = true;
+			if (ChessBoard.row(square) == ((getColor() == Color.WHITE) ? 6 : 1)
+					&& (board.getOccupancy() & (1L << twoSteps)) == 0) {
+				targets |= 1L << twoSteps;
 			}
+		}
 
-			p.setValues(position.getRow() + 1, position.getColumn() + 1);
+		return targets | enPassantTarget();
+	}
 
-			if (getBoard().positionExists(p) && isThereOpponentPiece(p)) {
-				mat[p.getRow()][p.getColumn()] = true;
+	@Override
+	public int generateMoves(int[] moves, int count) {
+		int from = getSquare();
+		long enPassant = enPassantTarget();
+		long opponents = getChessBoard().getOccupancy(opponent());
+
+		for (long targets = targets(); targets != 0; targets &= targets - 1) {
+			int to = Long.numberOfTrailingZeros(targets);
+			int flags = ((opponents >>> to) & 1L) != 0 ? Move.CAPTURE : Move.NONE;
+
+			if (((enPassant >>> to) & 1L) != 0) {
+				flags = Move.CAPTURE | Move.EN_PASSANT;
+			} else if (to - from == 2 * forward()) {
+				flags = Move.DOUBLE_PAWN_PUSH;
 			}
 
-			// #Special move en passant BLACK
-			if (position.getRow() == 4) {
-				Position left = new Position(position.getRow(), position.getColumn() - 1);
-
-				if (getBoard().positionExists(left) && isThereOpponentPiece(left)
-						&& getBoard().piece(left) == chessMatch.getEnPassantVulnerable()) {
-					mat[left.getRow() + 1][left.getColumn()] = true;
-				}
-
-				Position right = new Position(position.getRow(), position.getColumn() + 1);
-
-				if (getBoard().positionExists(right) && isThereOpponentPiece(right)
-						&& getBoard().piece(right) == chessMatch.getEnPassantVulnerable()) {
-					mat[right.getRow() + 1][right.getColumn()] = true;
+			// #Special move promotion
+			if (ChessBoard.row(to) == 0 || ChessBoard.row(to) == 7) {
+				for (PieceType promotion : PROMOTIONS) {
+					moves[count++] = Move.encode(from, to, flags, promotion);
 				}
+			} else {
+				moves[count++] = Move.encode(from, to, flags);
 			}
 		}
 
-		return mat;
+		return count;
 	}
 
 	@Override
@@ -0,0 +1,226 @@
+package chess.server;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import chess.ChessMatch;
+import chess.Move;
+import chess.MoveEvent;
+import chess.MoveListener;
+
+// Fans the moves of one match out to any number of spectators. Each event is encoded once into a text line shared by
+// every subscriber:
+//   SNAPSHOT <ply> <fen>
+//   MOVE <ply> <uci> [CAPTURE <piece>] [CHECK|CHECKMATE|STALEMATE]
+//   AMEND <ply> <uci> ..., the same as MOVE and replacing the move of that ply after an under-promotion
+//   DROPPED, the last line of a subscriber removed for falling behind
+// A subscriber starts with a snapshot and then gets the moves through its own bounded queue, drained on an executor.
+// The game never waits for a subscriber: one whose queue is full is dropped, or given a fresh snapshot instead of the
+// moves it missed.
+public class BroadcastHub implements MoveListener {
+	public static final int DEFAULT_QUEUE_CAPACITY = 64;
+
+	private static final byte[] DROPPED = "DROPPED\n".getBytes(StandardCharsets.US_ASCII);
+
+	public enum Overflow {
+		DROP, SNAPSHOT
+	}
+
+	private Executor executor;
+	private Owner owner;
+	private Overflow overflow;
+	private int queueCapacity;
+	private List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+	private LongAdder published = new LongAdder();
+	private LongAdder dropped = new LongAdder();
+	private LongAdder resynced = new LongAdder();
+
+	// Owner thread only, encoded when a subscriber needs it rather than on every move
+	private byte[] snapshot;
+
+	// The hub listens to the match but keeps no reference to it, a hibernating session can let its match go
+	public BroadcastHub(ChessMatch chessMatch, Executor executor, Owner owner, Overflow overflow, int queueCapacity) {
+		this.executor = executor;
+		this.owner = owner;
+		this.overflow = overflow;
+		this.queueCapacity = queueCapacity;
+
+		chessMatch.addMoveListener(this);
+	}
+
+	public BroadcastHub(ChessMatch chessMatch, Executor executor, Owner owner) {
+		this(chessMatch, executor, owner, Overflow.SNAPSHOT, DEFAULT_QUEUE_CAPACITY);
+	}
+
+	// Safe from any thread: the subscriber is added on the owner, between two moves, so its snapshot is never older
+	// than the first move it is sent
+	public Subscription subscribe(EventSink sink) {
+		Subscription subscription = new Subscription(sink);
+
+		this.owner.access(chessMatch -> {
+			if (!subscription.cancelled) {
+				subscription.queue.offer(snapshot(chessMatch));
+				this.subscriptions.add(subscription);
+				subscription.schedule();
+			}
+		});
+
+		return subscription;
+	}
+
+	public int getSubscriberCount() {
+		return subscriptions.size();
+	}
+
+	public long getPublishedCount() {
+		return published.sum();
+	}
+
+	public long getDroppedCount() {
+		return dropped.sum();
+	}
+
+	public long getResyncCount() {
+		return resynced.sum();
+	}
+
+	@Override
+	public void moveMade(MoveEvent event) {
+		byte[] line = encode(event);
+
+		this.snapshot = null;
+		this.published.increment();
+
+		int dropped = 0;
+
+		for (Subscription subscription : this.subscriptions) {
+			if (!subscription.queue.offer(line)) {
+				subscription.queue.clear();
+
+				// Room for one line after the clear: the notice, or the snapshot standing in for the missed moves
+				if (this.overflow == Overflow.DROP) {
+					subscription.dropped = true;
+					subscription.queue.offer(DROPPED);
+					dropped++;
+				} else {
+					subscription.queue.offer(snapshot(event.getChessMatch()));
+					this.resynced.increment();
+				}
+			}
+
+			subscription.schedule();
+		}
+
+		// One copy of the list however many were dropped
+		if (dropped > 0) {
+			this.subscriptions.removeIf(subscription -> subscription.dropped);
+			this.dropped.add(dropped);
+		}
+	}
+
+	private byte[] snapshot(ChessMatch chessMatch) {
+		if (this.snapshot == null) {
+			this.snapshot = encodeSnapshot(chessMatch);
+		}
+
+		return this.snapshot;
+	}
+
+	private static byte[] encode(MoveEvent event) {
+		StringBuilder sb = new StringBuilder(48);
+
+		sb.append(event.isAmended() ? "AMEND " : "MOVE ").append(event.getPly()).append(' ')
+				.append(Move.toString(event.getMove()));
+
+		if (event.isCapture()) {
+			sb.append(" CAPTURE ").append(event.getCaptured());
+		}
+
+		if (event.isCheckMate()) {
+			sb.append(" CHECKMATE");
+		} else if (event.isStalemate()) {
+			sb.append(" STALEMATE");
+		} else if (event.isCheck()) {
+			sb.append(" CHECK");
+		}
+
+		return sb.append('\n').toString().getBytes(StandardCharsets.US_ASCII);
+	}
+
+	private static byte[] encodeSnapshot(ChessMatch chessMatch) {
+		String line = "SNAPSHOT " + chessMatch.getPly() + " " + chessMatch.toFen() + "\n";
+
+		return line.getBytes(StandardCharsets.US_ASCII);
+	}
+
+	// Runs a task on the thread that owns the game, handing it the match as it is then: GameSession::access, or
+	// task -> task.accept(match) for code driving a match itself
+	public interface Owner {
+		void access(Consumer<ChessMatch> task);
+	}
+
+	public interface EventSink {
+		// The array is shared with every other subscriber and must not be changed
+		void send(byte[] event) throws IOException;
+	}
+
+	public class Subscription {
+		private EventSink sink;
+		private Queue<byte[]> queue = new ArrayBlockingQueue<>(BroadcastHub.this.queueCapacity);
+		private AtomicBoolean scheduled = new AtomicBoolean();
+		private volatile boolean cancelled;
+
+		// Owner thread only, set once DROPPED is queued
+		private boolean dropped;
+
+		private Subscription(EventSink sink) {
+			this.sink = sink;
+		}
+
+		public boolean isCancelled() {
+			return cancelled;
+		}
+
+		public void cancel() {
+			this.cancelled = true;
+			BroadcastHub.this.subscriptions.remove(this);
+			this.queue.clear();
+		}
+
+		private void schedule() {
+			if (!this.queue.isEmpty() && this.scheduled.compareAndSet(false, true)) {
+				BroadcastHub.this.executor.execute(this::drain);
+			}
+		}
+
+		private void drain() {
+			try {
+				for (byte[] event; !this.cancelled && (event = this.queue.poll()) != null;) {
+					this.sink.send(event);
+
+					if (event == DROPPED) {
+						this.cancelled = true;
+					}
+				}
+			} catch (IOException e) {
+				cancel();
+				BroadcastHub.this.dropped.increment();
+			} finally {
+				this.scheduled.set(false);
+			}
+
+			if (!this.cancelled) {
+				schedule();
+			}
+		}
+	}
+
+}
@@ -0,0 +1,135 @@
+package chess.server;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import chess.ChessException;
+import chess.ChessMatch;
+import chess.Move;
+
+// The line protocol, one request and one response line each:
+//   NEW [fen]          OK <id>
+//   MOVE <id> <move>   OK <uci> ONGOING|CHECK|CHECKMATE|STALEMATE, the move in UCI or SAN
+//   FEN <id>           OK <fen>
+//   CLOSE <id>         OK
+//   STATS [id]         OK <latency>, of one game or of all of them
+// Anything wrong answers ERR <reason>.
+public class GameProtocol {
+	private GameRegistry registry;
+
+	public GameProtocol(GameRegistry registry) {
+		this.registry = registry;
+	}
+
+	public GameRegistry getRegistry() {
+		return registry;
+	}
+
+	public CompletableFuture<String> execute(String line) {
+		String[] words = line.trim().split("\\s+", 3);
+		String command = words[0].toUpperCase();
+
+		try {
+			switch (command) {
+			case "NEW":
+				String fen = (words.length > 1) ? line.trim().substring(words[0].length()).trim() : null;
+
+				return CompletableFuture.completedFuture("OK " + this.registry.create(fen).getId());
+			case "MOVE":
+				if (words.length < 3) {
+					return error("MOVE needs a game id and a move");
+				}
+
+				String move = words[2].trim();
+
+				return session(words).submit(chessMatch -> play(chessMatch, move)).handle(GameProtocol::respond);
+			case "FEN":
+				return session(words).submit(chessMatch -> "OK " + chessMatch.toFen()).handle(GameProtocol::respond);
+			case "CLOSE":
+				GameSession closed = this.registry.remove(id(words));
+
+				return (closed == null) ? error("Unknown game " + words[1]) : CompletableFuture.completedFuture("OK");
+			case "STATS":
+				LatencyStats latency = (words.length > 1) ? session(words).getLatency() : this.registry.getLatency();
+
+				return CompletableFuture.completedFuture("OK games=" + this.registry.size() + " " + latency);
+			default:
+				return error("Unknown command " + words[0]);
+			}
+		} catch (ChessException | IllegalArgumentException e) {
+			return error(e.getMessage());
+		}
+	}
+
+	private static String play(ChessMatch chessMatch, String text) {
+		if (chessMatch.isGameOver()) {
+			throw new ChessException("The game is over");
+		}
+
+		int move = find(chessMatch, text);
+
+		chessMatch.performChessMove(Move.from(move), Move.to(move));
+
+		if (Move.isPromotion(move)) {
+			String uci = Move.toString(move);
+
+			chessMatch.replacePromotedPiece(uci.substring(4).toUpperCase());
+		}
+
+		String status = chessMatch.isCheckMate() ? "CHECKMATE"
+				: chessMatch.isStalemate() ? "STALEMATE" : chessMatch.isCheck() ? "CHECK" : "ONGOING";
+
+		return "OK " + Move.toString(move) + " " + status;
+	}
+
+	// UCI first since "b1c3" never reads as SAN, then SAN
+	private static int find(ChessMatch chessMatch, String text) {
+		int[] moves = new int[ChessMatch.MAX_MOVES];
+		int count = chessMatch.generateLegalMoves(moves);
+
+		for (int i = 0; i < count; i++) {
+			if (Move.toString(moves[i]).equalsIgnoreCase(text)) {
+				return moves[i];
+			}
+		}
+
+		return chessMatch.parseSan(text);
+	}
+
+	private GameSession session(String[] words) {
+		GameSession session = this.registry.get(id(words));
+
+		if (session == null) {
+			throw new ChessException("Unknown game " + words[1]);
+		}
+
+		return session;
+	}
+
+	private static long id(String[] words) {
+		if (words.length < 2) {
+			throw new ChessException(words[0].toUpperCase() + " needs a game id");
+		}
+
+		try {
+			return Long.parseLong(words[1]);
+		} catch (NumberFormatException e) {
+			throw new ChessException("Invalid game id " + words[1]);
+		}
+	}
+
+	private static String respond(String response, Throwable error) {
+		if (error == null) {
+			return response;
+		}
+
+		Throwable cause = (error instanceof CompletionException && error.getCause() != null) ? error.getCause() : error;
+
+		return "ERR " + cause.getMessage();
+	}
+
+	private static CompletableFuture<String> error(String message) {
+		return CompletableFuture.completedFuture("ERR " + message);
+	}
+
+}
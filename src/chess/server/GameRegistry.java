@@ -0,0 +1,77 @@
+package chess.server;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+import chess.ChessMatch;
+
+// The live games by id. Lookups never lock, each game orders its own actions.
+public class GameRegistry {
+	private Map<Long, GameSession> sessions = new ConcurrentHashMap<>();
+	private AtomicLong nextId = new AtomicLong();
+	private Executor executor;
+	private boolean compact;
+	private LatencyStats latency = new LatencyStats();
+
+	public GameRegistry(Executor executor) {
+		this(executor, false);
+	}
+
+	// Compact games can hibernate, see hibernateIdle
+	public GameRegistry(Executor executor, boolean compact) {
+		this.executor = executor;
+		this.compact = compact;
+	}
+
+	// The start position when fen is null
+	public GameSession create(String fen) {
+		ChessMatch chessMatch = (fen == null) ? new ChessMatch() : new ChessMatch(fen);
+		GameSession session = new GameSession(this.nextId.incrementAndGet(), chessMatch, this.executor, this.latency,
+				this.compact);
+
+		this.sessions.put(session.getId(), session);
+
+		return session;
+	}
+
+	// Compact registries only: games without an action for idleNanos swap their ChessMatch for a CompactPosition of
+	// about a hundred bytes until their next action. Returns how many were asked to.
+	public int hibernateIdle(long idleNanos) {
+		long now = System.nanoTime();
+		int count = 0;
+
+		for (GameSession session : this.sessions.values()) {
+			if (session.isIdle(now, idleNanos)) {
+				session.hibernate();
+				count++;
+			}
+		}
+
+		return count;
+	}
+
+	public GameSession get(long id) {
+		return this.sessions.get(id);
+	}
+
+	public GameSession remove(long id) {
+		return this.sessions.remove(id);
+	}
+
+	public int size() {
+		return sessions.size();
+	}
+
+	public Collection<GameSession> getSessions() {
+		return sessions.values();
+	}
+
+	// Every action of every game, closed games included
+	public LatencyStats getLatency() {
+		return latency;
+	}
+
+}
@@ -0,0 +1,179 @@
+package chess.server;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import chess.ChessMatch;
+import chess.CompactPosition;
+import chess.MoveListener;
+
+// One live game. Its actions queue up and run one at a time, in order, on a shared pool: games never wait on each
+// other and a ChessMatch is never touched by two threads at once. A compact session can hibernate once idle, keeping
+// a CompactPosition and what the match cannot be rebuilt without (the ply count, the keys for repetitions and the
+// move listeners) until the next action brings the match back.
+public class GameSession {
+	// Actions run before the worker moves on to another game
+	private static final int BATCH = 32;
+
+	private long id;
+	private ChessMatch chessMatch;
+	private Executor executor;
+	private LatencyStats latency = new LatencyStats();
+	private LatencyStats aggregate;
+	private Queue<Runnable> actions = new ConcurrentLinkedQueue<>();
+	private AtomicBoolean scheduled = new AtomicBoolean();
+	private boolean compact;
+	private volatile long lastActive = System.nanoTime();
+	private volatile boolean hibernating;
+
+	// Only while hibernating, except the position which is reused
+	private CompactPosition position;
+	private int plies;
+	private long[] repetitionKeys;
+	private List<MoveListener> listeners;
+
+	GameSession(long id, ChessMatch chessMatch, Executor executor, LatencyStats aggregate, boolean compact) {
+		this.id = id;
+		this.chessMatch = chessMatch;
+		this.executor = executor;
+		this.aggregate = aggregate;
+		this.compact = compact;
+	}
+
+	public long getId() {
+		return id;
+	}
+
+	public LatencyStats getLatency() {
+		return latency;
+	}
+
+	public boolean isHibernating() {
+		return hibernating;
+	}
+
+	// Safe from any thread: a compact session drops its match once the actions already queued have run
+	public void hibernate() {
+		if (this.compact) {
+			this.actions.add(this::release);
+			schedule();
+		}
+	}
+
+	boolean isIdle(long now, long idleNanos) {
+		return this.compact && !this.hibernating && this.actions.isEmpty() && now - this.lastActive >= idleNanos;
+	}
+
+	// Latency counts from the call to the end of the action, queueing behind earlier actions included
+	public <T> CompletableFuture<T> submit(Function<ChessMatch, T> action) {
+		CompletableFuture<T> future = new CompletableFuture<>();
+		long start = System.nanoTime();
+
+		this.actions.add(() -> {
+			T result = null;
+			RuntimeException error = null;
+
+			try {
+				if (this.chessMatch == null) {
+					restore();
+				}
+
+				result = action.apply(this.chessMatch);
+			} catch (RuntimeException e) {
+				error = e;
+			}
+
+			long elapsed = System.nanoTime() - start;
+
+			this.latency.record(elapsed);
+			this.aggregate.record(elapsed);
+
+			if (error == null) {
+				future.complete(result);
+			} else {
+				future.completeExceptionally(error);
+			}
+		});
+
+		schedule();
+
+		return future;
+	}
+
+	// Submit without a result, a BroadcastHub.Owner for the game
+	public void access(Consumer<ChessMatch> task) {
+		submit(chessMatch -> {
+			task.accept(chessMatch);
+
+			return null;
+		});
+	}
+
+	private void schedule() {
+		if (!this.actions.isEmpty() && this.scheduled.compareAndSet(false, true)) {
+			this.executor.execute(this::drain);
+		}
+	}
+
+	private void drain() {
+		try {
+			for (int i = 0; i < BATCH; i++) {
+				Runnable action = this.actions.poll();
+
+				if (action == null) {
+					break;
+				}
+
+				action.run();
+			}
+		} finally {
+			this.lastActive = System.nanoTime();
+			this.scheduled.set(false);
+		}
+
+		// Actions added while draining, or left over from the batch
+		schedule();
+	}
+
+	// A promotion waiting for its piece only lives in the match, so that game stays as it is
+	private void release() {
+		if (this.chessMatch == null || this.chessMatch.getPromoted() != null) {
+			return;
+		}
+
+		if (this.position == null) {
+			this.position = new CompactPosition();
+		}
+
+		List<MoveListener> listeners = this.chessMatch.getMoveListeners();
+
+		this.position.store(this.chessMatch);
+		this.plies = this.chessMatch.getPly();
+		this.repetitionKeys = this.chessMatch.getRepetitionKeys();
+		this.listeners = listeners.isEmpty() ? Collections.emptyList() : new ArrayList<>(listeners);
+		this.chessMatch = null;
+		this.hibernating = true;
+	}
+
+	private void restore() {
+		this.chessMatch = this.position.toChessMatch();
+		this.chessMatch.resume(this.plies, this.repetitionKeys);
+
+		for (MoveListener listener : this.listeners) {
+			this.chessMatch.addMoveListener(listener);
+		}
+
+		this.repetitionKeys = null;
+		this.listeners = null;
+		this.hibernating = false;
+	}
+
+}
@@ -0,0 +1,68 @@
+package chess.server;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Request latencies in power of two buckets, recorded by any number of threads without locking
+public class LatencyStats {
+	private static final int BUCKETS = 64;
+
+	private LongAdder count = new LongAdder();
+	private LongAdder totalNanos = new LongAdder();
+	private AtomicLong maxNanos = new AtomicLong();
+	private AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+	public void record(long nanos) {
+		this.count.increment();
+		this.totalNanos.add(nanos);
+		this.buckets.incrementAndGet(BUCKETS - Long.numberOfLeadingZeros(Math.max(nanos, 1L)));
+
+		for (long max = this.maxNanos.get(); nanos > max && !this.maxNanos.compareAndSet(max, nanos);) {
+			max = this.maxNanos.get();
+		}
+	}
+
+	public long getCount() {
+		return count.sum();
+	}
+
+	public long getMeanNanos() {
+		long count = this.count.sum();
+
+		return (count == 0) ? 0L : this.totalNanos.sum() / count;
+	}
+
+	public long getMaxNanos() {
+		return maxNanos.get();
+	}
+
+	// Upper bound of the bucket holding the percentile, so at most twice the real value
+	public long getPercentileNanos(double percentile) {
+		long count = 0L;
+
+		for (int i = 0; i < BUCKETS; i++) {
+			count += this.buckets.get(i);
+		}
+
+		long rank = (long) Math.ceil(count * percentile / 100.0);
+		long seen = 0L;
+
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += this.buckets.get(i);
+
+			if (seen >= rank && seen > 0) {
+				return Math.min((i == BUCKETS - 1) ? Long.MAX_VALUE : (1L << i) - 1, getMaxNanos());
+			}
+		}
+
+		return 0L;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("count=%d mean_us=%d p50_us=%d p99_us=%d max_us=%d", getCount(), getMeanNanos() / 1000,
+				getPercentileNanos(50) / 1000, getPercentileNanos(99) / 1000, getMaxNanos() / 1000);
+	}
+
+}
@@ -0,0 +1,350 @@
+package chess.server;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Serves the GameProtocol over TCP on one selector thread. A connection costs two small buffers and no thread, so
+// thousands of idle clients are cheap; the game actions themselves run on the registry's executor.
+public class SessionServer implements Closeable {
+	public static final int MAX_LINE = 256;
+
+	// Requests read but not yet answered on one connection, a client pipelining past it is no longer read from
+	public static final int MAX_IN_FLIGHT = 64;
+
+	private static final int BUFFER_SIZE = 512;
+
+	// How long accepting stays off once the process runs out of file descriptors, unless a connection closes first
+	private static final long ACCEPT_RETRY_NANOS = 100000000L;
+
+	private GameProtocol protocol;
+	private Selector selector;
+	private ServerSocketChannel serverChannel;
+	private Queue<Connection> writable = new ConcurrentLinkedQueue<>();
+	private AtomicInteger connectionCount = new AtomicInteger();
+	private volatile boolean running = true;
+	// Selector thread only: whether OP_ACCEPT is off and until when, and whether the shortage was reported
+	private boolean acceptPaused;
+	private long acceptRetryAt;
+	private boolean descriptorsExhausted;
+
+	public SessionServer(GameProtocol protocol, int port) throws IOException {
+		this.protocol = protocol;
+		this.selector = Selector.open();
+		this.serverChannel = ServerSocketChannel.open();
+		this.serverChannel.bind(new InetSocketAddress(port), 1024);
+		this.serverChannel.configureBlocking(false);
+		this.serverChannel.register(this.selector, SelectionKey.OP_ACCEPT);
+	}
+
+	public int getPort() {
+		return serverChannel.socket().getLocalPort();
+	}
+
+	public int getConnectionCount() {
+		return connectionCount.get();
+	}
+
+	// Blocks until close
+	public void run() throws IOException {
+		try {
+			while (this.running) {
+				if (!this.acceptPaused) {
+					this.selector.select();
+				} else {
+					this.selector.select(Math.max(1L, (this.acceptRetryAt - System.nanoTime()) / 1000000L));
+
+					if (System.nanoTime() - this.acceptRetryAt >= 0) {
+						resumeAccepting();
+					}
+				}
+
+				for (Connection connection; (connection = this.writable.poll()) != null;) {
+					connection.flush();
+				}
+
+				Iterator<SelectionKey> keys = this.selector.selectedKeys().iterator();
+
+				while (keys.hasNext()) {
+					SelectionKey key = keys.next();
+
+					keys.remove();
+
+					if (!key.isValid()) {
+						continue;
+					}
+
+					if (key.isAcceptable()) {
+						accept();
+						continue;
+					}
+
+					Connection connection = (Connection) key.attachment();
+
+					if (key.isReadable()) {
+						connection.read();
+					}
+
+					if (key.isValid() && key.isWritable()) {
+						connection.flush();
+					}
+				}
+			}
+		} catch (ClosedSelectorException e) {
+			// Closed from another thread
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.running = false;
+
+		for (SelectionKey key : this.selector.keys()) {
+			key.channel().close();
+		}
+
+		this.selector.close();
+	}
+
+	// A failure only costs the connection it happened on
+	private void accept() {
+		while (true) {
+			SocketChannel channel;
+
+			try {
+				channel = this.serverChannel.accept();
+			} catch (IOException e) {
+				// Out of file descriptors, the listener would stay ready and spin, so the client waits in the backlog
+				// until a connection closes or the retry deadline passes. Anything else only costs this attempt.
+				if (isDescriptorExhaustion(e)) {
+					pauseAccepting(e);
+				}
+
+				return;
+			}
+
+			if (channel == null) {
+				return;
+			}
+
+			if (this.descriptorsExhausted) {
+				this.descriptorsExhausted = false;
+				System.err.println("Accepting connections again (" + this.connectionCount.get() + " open)");
+			}
+
+			try {
+				channel.configureBlocking(false);
+				channel.socket().setTcpNoDelay(true);
+				channel.register(this.selector, SelectionKey.OP_READ, new Connection(channel));
+				this.connectionCount.incrementAndGet();
+			} catch (IOException e) {
+				try {
+					channel.close();
+				} catch (IOException ignored) {
+					// Already gone
+				}
+			}
+		}
+	}
+
+	private static boolean isDescriptorExhaustion(IOException e) {
+		return e.getMessage() != null && e.getMessage().contains("Too many open files");
+	}
+
+	// Logged once per shortage, not on every retry
+	private void pauseAccepting(IOException e) {
+		if (!this.descriptorsExhausted) {
+			this.descriptorsExhausted = true;
+			System.err.println("Not accepting connections, retrying every " + ACCEPT_RETRY_NANOS / 1000000L + " ms: "
+					+ e.getMessage() + " (" + this.connectionCount.get() + " open)");
+		}
+
+		this.serverChannel.keyFor(this.selector).interestOps(0);
+		this.acceptPaused = true;
+		this.acceptRetryAt = System.nanoTime() + ACCEPT_RETRY_NANOS;
+	}
+
+	private void resumeAccepting() {
+		if (!this.acceptPaused) {
+			return;
+		}
+
+		SelectionKey key = this.serverChannel.keyFor(this.selector);
+
+		this.acceptPaused = false;
+
+		if (key != null && key.isValid()) {
+			key.interestOps(SelectionKey.OP_ACCEPT);
+		}
+	}
+
+	private class Connection {
+		private SocketChannel channel;
+		private ByteBuffer input = ByteBuffer.allocate(BUFFER_SIZE);
+		private StringBuilder line = new StringBuilder();
+		private Queue<ByteBuffer> output = new ConcurrentLinkedQueue<>();
+
+		// Completes after the response to the latest request, so responses keep the order of the requests
+		private CompletableFuture<Void> tail = CompletableFuture.completedFuture(null);
+
+		// No more requests are read once set, the connection closes when the last response is out
+		private boolean closing;
+		private volatile boolean lastQueued;
+
+		// Requests whose response has not been written out yet, and whether reading stopped on MAX_IN_FLIGHT
+		private int inFlight;
+		private boolean paused;
+
+		private Connection(SocketChannel channel) {
+			this.channel = channel;
+		}
+
+		private void read() {
+			int read;
+
+			try {
+				read = this.channel.read(this.input);
+			} catch (IOException e) {
+				read = -1;
+			}
+
+			if (read < 0) {
+				close();
+				return;
+			}
+
+			parse();
+		}
+
+		// Stops at MAX_IN_FLIGHT, the rest of the input stays in the buffer until the responses drain
+		private void parse() {
+			this.input.flip();
+
+			while (this.input.hasRemaining() && !this.closing && this.inFlight < MAX_IN_FLIGHT) {
+				char c = (char) (this.input.get() & 0xff);
+
+				if (c == '\n') {
+					request(this.line.toString().trim());
+					this.line.setLength(0);
+				} else if (c != '\r') {
+					this.line.append(c);
+
+					if (this.line.length() > MAX_LINE) {
+						this.closing = true;
+						reply(CompletableFuture.completedFuture("ERR Line longer than " + MAX_LINE));
+					}
+				}
+			}
+
+			this.input.compact();
+			this.paused = this.inFlight >= MAX_IN_FLIGHT;
+			interest(!this.output.isEmpty());
+		}
+
+		private void request(String line) {
+			if (line.isEmpty()) {
+				return;
+			}
+
+			if (line.equalsIgnoreCase("QUIT")) {
+				this.closing = true;
+				reply(CompletableFuture.completedFuture("OK bye"));
+				return;
+			}
+
+			CompletableFuture<String> response;
+
+			try {
+				response = SessionServer.this.protocol.execute(line);
+			} catch (RuntimeException e) {
+				response = CompletableFuture.completedFuture("ERR " + e.getMessage());
+			}
+
+			reply(response);
+		}
+
+		private void reply(CompletableFuture<String> response) {
+			boolean last = this.closing;
+
+			this.inFlight++;
+			this.tail = this.tail.thenCombine(response, (previous, text) -> {
+				this.output.add(ByteBuffer.wrap((text + "\n").getBytes(StandardCharsets.UTF_8)));
+				this.lastQueued = last;
+				SessionServer.this.writable.add(this);
+				SessionServer.this.selector.wakeup();
+
+				return null;
+			});
+		}
+
+		// Selector thread only
+		private void flush() {
+			if (!this.channel.isOpen()) {
+				return;
+			}
+
+			try {
+				for (ByteBuffer buffer; (buffer = this.output.peek()) != null;) {
+					this.channel.write(buffer);
+
+					if (buffer.hasRemaining()) {
+						interest(true);
+						return;
+					}
+
+					this.output.poll();
+					this.inFlight--;
+				}
+
+				if (this.lastQueued && this.output.isEmpty()) {
+					close();
+				} else if (this.paused && this.inFlight < MAX_IN_FLIGHT) {
+					// Picks up the requests already buffered before reading any more
+					parse();
+				} else {
+					interest(false);
+				}
+			} catch (IOException e) {
+				close();
+			}
+		}
+
+		// Reads only while the connection takes requests, writes only while a response is part way out
+		private void interest(boolean writing) {
+			SelectionKey key = this.channel.keyFor(SessionServer.this.selector);
+
+			if (key != null && key.isValid()) {
+				key.interestOps(((this.paused || this.closing) ? 0 : SelectionKey.OP_READ)
+						| (writing ? SelectionKey.OP_WRITE : 0));
+			}
+		}
+
+		private void close() {
+			if (!this.channel.isOpen()) {
+				return;
+			}
+
+			try {
+				this.channel.close();
+			} catch (IOException e) {
+				// Already gone
+			}
+
+			SessionServer.this.connectionCount.decrementAndGet();
+			SessionServer.this.resumeAccepting();
+		}
+	}
+
+}
@@ -0,0 +1,104 @@
+package chess.tablebase;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Decoded blocks of every open table in a lock-free clock cache. A key hashes to one set of WAYS slots, hits mark
+// their entry referenced and a put sweeps the set's clock hand past referenced entries to evict the first cold one.
+// Two threads missing on the same block both inflate it and the last put wins, which is cheaper than locking.
+final class BlockCache {
+	private static final int WAYS = 8;
+
+	private AtomicReferenceArray<Entry> slots;
+	private AtomicIntegerArray hands;
+	private int ways;
+	private int setMask;
+	private LongAdder hits = new LongAdder();
+	private LongAdder misses = new LongAdder();
+
+	BlockCache(int capacity) {
+		this.ways = Math.max(1, Math.min(WAYS, capacity));
+
+		int sets = Integer.highestOneBit(Math.max(1, (capacity + this.ways - 1) / this.ways));
+
+		if (sets * this.ways < capacity) {
+			sets <<= 1;
+		}
+
+		this.slots = new AtomicReferenceArray<>(sets * this.ways);
+		this.hands = new AtomicIntegerArray(sets);
+		this.setMask = sets - 1;
+	}
+
+	static long key(int table, int block) {
+		return ((long) table << 32) | block;
+	}
+
+	private int set(long key) {
+		long hash = key * 0x9E3779B97F4A7C15L;
+
+		return (int) (hash ^ (hash >>> 32)) & this.setMask;
+	}
+
+	byte[] get(long key) {
+		int base = set(key) * this.ways;
+
+		for (int i = 0; i < this.ways; i++) {
+			Entry entry = this.slots.get(base + i);
+
+			if (entry != null && entry.key == key) {
+				// Only written when it changes, so hot blocks do not keep dirtying the line
+				if (!entry.referenced) {
+					entry.referenced = true;
+				}
+
+				this.hits.increment();
+				return entry.block;
+			}
+		}
+
+		this.misses.increment();
+		return null;
+	}
+
+	void put(long key, byte[] block) {
+		int set = set(key);
+		int base = set * this.ways;
+		Entry entry = new Entry(key, block);
+
+		// At most two sweeps: the first one clears the referenced bits it passes
+		for (int i = 0; i < 2 * this.ways; i++) {
+			int slot = base + (this.hands.getAndIncrement(set) & Integer.MAX_VALUE) % this.ways;
+			Entry victim = this.slots.get(slot);
+
+			if (victim != null && victim.key != key && victim.referenced) {
+				victim.referenced = false;
+			} else if (this.slots.compareAndSet(slot, victim, entry)) {
+				return;
+			}
+		}
+
+		// Every entry was touched again during the sweeps, the block is simply not cached
+	}
+
+	long getHits() {
+		return hits.sum();
+	}
+
+	long getMisses() {
+		return misses.sum();
+	}
+
+	private static class Entry {
+		private long key;
+		private byte[] block;
+		private volatile boolean referenced;
+
+		Entry(long key, byte[] block) {
+			this.key = key;
+			this.block = block;
+		}
+	}
+
+}
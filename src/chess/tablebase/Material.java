@@ -0,0 +1,266 @@
+package chess.tablebase;
+
+import chess.ChessException;
+import chess.Color;
+import chess.PieceType;
+
+// The pieces of one table and the layout of its index. Names read like "KQvKR", strongest side first, pieces in
+// the order KQRBNP. The board symmetries fold the white king into the a1-d1-d4 triangle, or onto the a-d files when
+// there are pawns. Every other piece takes 6 bits and the lowest bit is the side to move.
+final class Material {
+	static final String LETTERS = "KQRBNP";
+
+	private static final PieceType[] TYPES = { PieceType.KING, PieceType.QUEEN, PieceType.ROOK, PieceType.BISHOP,
+			PieceType.KNIGHT, PieceType.PAWN };
+
+	private static final int MIRROR_FILE = 1;
+	private static final int MIRROR_RANK = 2;
+	private static final int DIAGONAL = 4;
+
+	private static final int[] PAWNLESS_SLOTS = new int[64];
+	private static final int[] PAWN_SLOTS = new int[64];
+	private static final int[] PAWNLESS_KINGS = new int[10];
+	private static final int[] PAWN_KINGS = new int[32];
+
+	static {
+		int pawnless = 0;
+		int pawn = 0;
+
+		for (int square = 0; square < 64; square++) {
+			int file = square & 7;
+			int rank = 7 - (square >>> 3);
+
+			PAWNLESS_SLOTS[square] = -1;
+			PAWN_SLOTS[square] = -1;
+
+			if (file <= 3) {
+				PAWN_SLOTS[square] = pawn;
+				PAWN_KINGS[pawn++] = square;
+
+				if (rank <= 3 && rank <= file) {
+					PAWNLESS_SLOTS[square] = pawnless;
+					PAWNLESS_KINGS[pawnless++] = square;
+				}
+			}
+		}
+	}
+
+	private String name;
+	private PieceType[] types;
+	private Color[] colors;
+	private int blackKing;
+	private boolean pawns;
+	private int[] kingSlots;
+	private int[] kings;
+	private long size;
+
+	private Material(String name) {
+		int split = name.indexOf('v');
+
+		this.name = name;
+		this.types = new PieceType[name.length() - 1];
+		this.colors = new Color[name.length() - 1];
+		this.blackKing = split;
+
+		for (int i = 0; i < this.types.length; i++) {
+			char c = name.charAt((i < split) ? i : i + 1);
+
+			this.types[i] = TYPES[LETTERS.indexOf(c)];
+			this.colors[i] = (i < split) ? Color.WHITE : Color.BLACK;
+			this.pawns |= c == 'P';
+		}
+
+		this.kingSlots = this.pawns ? PAWN_SLOTS : PAWNLESS_SLOTS;
+		this.kings = this.pawns ? PAWN_KINGS : PAWNLESS_KINGS;
+		this.size = (long) this.kings.length << (6 * (this.types.length - 1) + 1);
+	}
+
+	static Material of(String name) {
+		String canonical = canonical(name);
+
+		if (!canonical.equals(name)) {
+			throw new ChessException("Not a canonical material name: " + name + " (use " + canonical + ")");
+		}
+
+		return new Material(name);
+	}
+
+	// Each side sorted, and the stronger side first: more pieces, then stronger pieces
+	static String canonical(String name) {
+		int split = name.indexOf('v');
+
+		if (split < 0 || name.indexOf('v', split + 1) >= 0) {
+			throw new ChessException("Invalid material: " + name);
+		}
+
+		String white = sortSide(name.substring(0, split), name);
+		String black = sortSide(name.substring(split + 1), name);
+
+		return (compareSides(white, black) >= 0) ? white + "v" + black : black + "v" + white;
+	}
+
+	private static String sortSide(String side, String name) {
+		char[] letters = side.toCharArray();
+
+		if (letters.length == 0 || letters[0] != 'K') {
+			throw new ChessException("Invalid material: " + name);
+		}
+
+		for (int i = 1; i < letters.length; i++) {
+			if (LETTERS.indexOf(letters[i]) <= 0) {
+				throw new ChessException("Invalid material: " + name);
+			}
+		}
+
+		for (int i = 1; i < letters.length; i++) {
+			for (int j = i; j > 1 && LETTERS.indexOf(letters[j]) < LETTERS.indexOf(letters[j - 1]); j--) {
+				char c = letters[j];
+
+				letters[j] = letters[j - 1];
+				letters[j - 1] = c;
+			}
+		}
+
+		return new String(letters);
+	}
+
+	// Positive when the first side is the stronger one
+	static int compareSides(String a, String b) {
+		if (a.length() != b.length()) {
+			return a.length() - b.length();
+		}
+
+		for (int i = 0; i < a.length(); i++) {
+			if (a.charAt(i) != b.charAt(i)) {
+				return LETTERS.indexOf(b.charAt(i)) - LETTERS.indexOf(a.charAt(i));
+			}
+		}
+
+		return 0;
+	}
+
+	// One side of a name from the piece counts of a color, indexed by PieceType ordinal
+	static String side(int[] counts) {
+		StringBuilder sb = new StringBuilder("K");
+
+		for (int i = 1; i < TYPES.length; i++) {
+			for (int j = 0; j < counts[TYPES[i].ordinal()]; j++) {
+				sb.append(LETTERS.charAt(i));
+			}
+		}
+
+		return sb.toString();
+	}
+
+	String getName() {
+		return name;
+	}
+
+	int getPieceCount() {
+		return types.length;
+	}
+
+	PieceType getType(int piece) {
+		return types[piece];
+	}
+
+	Color getColor(int piece) {
+		return colors[piece];
+	}
+
+	int king(Color color) {
+		return (color == Color.WHITE) ? 0 : blackKing;
+	}
+
+	boolean hasPawns() {
+		return pawns;
+	}
+
+	long getSize() {
+		return size;
+	}
+
+	long index(int[] squares, boolean blackToMove) {
+		int king = squares[0];
+		int symmetry = 0;
+
+		if ((king & 7) > 3) {
+			symmetry |= MIRROR_FILE;
+			king ^= 7;
+		}
+
+		// Pawns only allow the left-right mirror
+		if (!this.pawns) {
+			if ((king >>> 3) < 4) {
+				symmetry |= MIRROR_RANK;
+				king ^= 56;
+			}
+
+			if (7 - (king >>> 3) > (king & 7)) {
+				symmetry |= DIAGONAL;
+				king = transform(king, DIAGONAL);
+			} else if (7 - (king >>> 3) == (king & 7)) {
+				symmetry |= diagonalTieBreak(squares, symmetry);
+			}
+		}
+
+		long index = this.kingSlots[king];
+
+		for (int i = 1; i < this.types.length; i++) {
+			index = (index << 6) | transform(squares[i], symmetry);
+		}
+
+		return (index << 1) | (blackToMove ? 1 : 0);
+	}
+
+	// A king on the diagonal leaves two mirror images, the first piece off the diagonal picks one of them so that
+	// every position has a single index
+	private int diagonalTieBreak(int[] squares, int symmetry) {
+		for (int i = 1; i < this.types.length; i++) {
+			int square = transform(squares[i], symmetry);
+			int rank = 7 - (square >>> 3);
+
+			if (rank != (square & 7)) {
+				return (rank > (square & 7)) ? DIAGONAL : 0;
+			}
+		}
+
+		return 0;
+	}
+
+	// Fills the squares of the index, returns whether black is to move
+	boolean decode(long index, int[] squares) {
+		long rest = index >>> 1;
+
+		for (int i = this.types.length - 1; i > 0; i--) {
+			squares[i] = (int) (rest & 63);
+			rest >>>= 6;
+		}
+
+		squares[0] = this.kings[(int) rest];
+
+		return (index & 1) != 0;
+	}
+
+	private static int transform(int square, int symmetry) {
+		if ((symmetry & MIRROR_FILE) != 0) {
+			square ^= 7;
+		}
+
+		if ((symmetry & MIRROR_RANK) != 0) {
+			square ^= 56;
+		}
+
+		if ((symmetry & DIAGONAL) != 0) {
+			square = ((7 - (square & 7)) << 3) | (7 - (square >>> 3));
+		}
+
+		return square;
+	}
+
+	@Override
+	public String toString() {
+		return name;
+	}
+
+}
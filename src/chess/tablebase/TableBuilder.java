@@ -0,0 +1,553 @@
+package chess.tablebase;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+import chess.Attacks;
+import chess.ChessException;
+import chess.ChessMatch;
+import chess.Color;
+import chess.PieceType;
+
+// Solves one table by sweeps. Captures and promotions leave the table and are looked up in the smaller tables,
+// which have to exist already. The first pass finds win/draw/loss: a sweep only trusts what the previous sweeps
+// decided, so a position is decided by the shortest forced line. The second pass then counts the distance to
+// zeroing, with every capture and pawn move ending the count.
+final class TableBuilder {
+	private static final byte UNKNOWN = 2;
+	private static final byte INVALID = 3;
+	private static final byte NO_EXIT = -2;
+
+	private static final PieceType[] PROMOTIONS = { PieceType.QUEEN, PieceType.ROOK, PieceType.BISHOP,
+			PieceType.KNIGHT };
+
+	private Material material;
+	private Tablebase tablebase;
+	private int size;
+	private int pieceCount;
+	private PieceType[] types;
+	private Color[] colors;
+
+	// Per position: the result for the side to move, the best capture or promotion, and the sweep that decided it
+	private byte[] wdl;
+	private byte[] exits;
+	private short[] distances;
+
+	private int[] squares;
+	private int[] moved;
+	private int[] enPassant;
+	private PieceType[] subTypes;
+	private Color[] subColors;
+	private int[] subSquares;
+
+	// The moves that stay in the table, filled by generate()
+	private int[] successors = new int[ChessMatch.MAX_MOVES];
+	private byte[] caps = new byte[ChessMatch.MAX_MOVES];
+	private boolean[] zeroing = new boolean[ChessMatch.MAX_MOVES];
+	private int legalMoves;
+	private int exitBest;
+
+	// Decided in the current sweep, and the positions leading to one of them
+	private int[] resolved = new int[1024];
+	private int resolvedCount;
+	private int[] predecessors = new int[ChessMatch.MAX_MOVES];
+
+	TableBuilder(Material material, Tablebase tablebase) {
+		if (material.getSize() > Integer.MAX_VALUE) {
+			throw new ChessException("Too many pieces to build the " + material + " table");
+		}
+
+		this.material = material;
+		this.tablebase = tablebase;
+		this.size = (int) material.getSize();
+		this.pieceCount = material.getPieceCount();
+		this.types = new PieceType[this.pieceCount];
+		this.colors = new Color[this.pieceCount];
+
+		for (int i = 0; i < this.pieceCount; i++) {
+			this.types[i] = material.getType(i);
+			this.colors[i] = material.getColor(i);
+		}
+
+		this.squares = new int[this.pieceCount];
+		this.moved = new int[this.pieceCount];
+		this.enPassant = new int[this.pieceCount];
+		this.subTypes = new PieceType[this.pieceCount];
+		this.subColors = new Color[this.pieceCount];
+		this.subSquares = new int[this.pieceCount];
+	}
+
+	byte[] build() {
+		this.wdl = new byte[this.size];
+		this.exits = new byte[this.size];
+		this.distances = new short[this.size];
+
+		initialize();
+		solveWdl();
+		solveDtz();
+
+		byte[] entries = new byte[this.size];
+
+		for (int index = 0; index < this.size; index++) {
+			switch (this.wdl[index]) {
+			case INVALID:
+				entries[index] = (byte) TablebaseFile.INVALID;
+				break;
+			case Tablebase.WIN:
+				entries[index] = (byte) this.distances[index];
+				break;
+			case Tablebase.LOSS:
+				entries[index] = (byte) (TablebaseFile.LOSS + this.distances[index]);
+				break;
+			default:
+				entries[index] = TablebaseFile.DRAW;
+			}
+		}
+
+		return entries;
+	}
+
+	// Marks the impossible indexes, the mates and stalemates, and looks up every capture and promotion once. An
+	// index whose squares give back another index is a mirror image stored elsewhere and is left out as well.
+	private void initialize() {
+		for (int index = 0; index < this.size; index++) {
+			boolean blackToMove = this.material.decode(index, this.squares);
+
+			this.distances[index] = -1;
+
+			if (!isValid(blackToMove) || this.material.index(this.squares, blackToMove) != index) {
+				this.wdl[index] = INVALID;
+				continue;
+			}
+
+			generate(blackToMove, true);
+			this.exits[index] = (byte) this.exitBest;
+
+			if (this.legalMoves == 0) {
+				this.wdl[index] = (byte) (isInCheck(blackToMove) ? Tablebase.LOSS : Tablebase.DRAW);
+				this.distances[index] = 0;
+			} else {
+				this.wdl[index] = UNKNOWN;
+			}
+		}
+	}
+
+	// The first sweep looks at every position. After that a position can only be decided by a successor decided in
+	// the sweep before, so only the predecessors of those are looked at again.
+	private void solveWdl() {
+		this.resolvedCount = 0;
+
+		for (int index = 0; index < this.size; index++) {
+			decideWdl(index, 1);
+		}
+
+		for (int sweep = 2; this.resolvedCount > 0; sweep++) {
+			BitSet candidates = frontier();
+
+			for (int index = candidates.nextSetBit(0); index >= 0; index = candidates.nextSetBit(index + 1)) {
+				decideWdl(index, sweep);
+			}
+		}
+
+		// Whatever could not be forced either way is a draw
+		for (int index = 0; index < this.size; index++) {
+			if (this.wdl[index] == UNKNOWN) {
+				this.wdl[index] = Tablebase.DRAW;
+			}
+		}
+	}
+
+	private void decideWdl(int index, int sweep) {
+		if (this.wdl[index] != UNKNOWN) {
+			return;
+		}
+
+		int count = generate(this.material.decode(index, this.squares), false);
+		boolean win = this.exits[index] == Tablebase.WIN;
+		boolean loss = this.exits[index] <= Tablebase.LOSS;
+
+		for (int m = 0; m < count && !win; m++) {
+			int value = opponentValue(m, sweep);
+
+			win = value == Tablebase.LOSS;
+			loss &= value == Tablebase.WIN;
+		}
+
+		if (win || loss) {
+			this.wdl[index] = (byte) (win ? Tablebase.WIN : Tablebase.LOSS);
+			this.distances[index] = (short) sweep;
+			resolved(index);
+		}
+	}
+
+	// The opponent's result after the m-th move, UNKNOWN unless an earlier sweep decided it
+	private int opponentValue(int m, int sweep) {
+		int successor = this.successors[m];
+
+		if (this.caps[m] == Tablebase.WIN) {
+			return Tablebase.WIN;
+		}
+
+		if (this.wdl[successor] == UNKNOWN || this.distances[successor] >= sweep) {
+			return UNKNOWN;
+		}
+
+		return Math.max(this.wdl[successor], this.caps[m]);
+	}
+
+	// Same sweeps, the distance of a position is the sweep that decides it: a winner needs one move to a position
+	// counted before, a loser needs all of them
+	private void solveDtz() {
+		for (int index = 0; index < this.size; index++) {
+			if (this.distances[index] > 0) {
+				this.distances[index] = -1;
+			}
+		}
+
+		this.resolvedCount = 0;
+
+		for (int index = 0; index < this.size; index++) {
+			decideDtz(index, 1);
+		}
+
+		for (int sweep = 2; this.resolvedCount > 0; sweep++) {
+			BitSet candidates = frontier();
+
+			for (int index = candidates.nextSetBit(0); index >= 0; index = candidates.nextSetBit(index + 1)) {
+				decideDtz(index, sweep);
+			}
+		}
+	}
+
+	private void decideDtz(int index, int sweep) {
+		int value = this.wdl[index];
+
+		if (this.distances[index] >= 0 || (value != Tablebase.WIN && value != Tablebase.LOSS)) {
+			return;
+		}
+
+		int count = generate(this.material.decode(index, this.squares), false);
+		boolean decided = value == Tablebase.LOSS || this.exits[index] == Tablebase.WIN;
+
+		for (int m = 0; m < count; m++) {
+			int successor = this.successors[m];
+			boolean counted = this.zeroing[m] || (this.distances[successor] >= 0 && this.distances[successor] < sweep);
+
+			if (value == Tablebase.LOSS) {
+				decided &= counted;
+			} else if (counted && Math.max(this.wdl[successor], this.caps[m]) == Tablebase.LOSS) {
+				decided = true;
+			}
+		}
+
+		if (decided) {
+			int limit = (value == Tablebase.WIN) ? TablebaseFile.LOSS : TablebaseFile.INVALID - TablebaseFile.LOSS;
+
+			if (sweep >= limit) {
+				throw new ChessException("Distance to zeroing too long for the " + this.material + " table");
+			}
+
+			this.distances[index] = (short) sweep;
+			resolved(index);
+		}
+	}
+
+	private void resolved(int index) {
+		if (this.resolvedCount == this.resolved.length) {
+			this.resolved = Arrays.copyOf(this.resolved, this.resolved.length * 2);
+		}
+
+		this.resolved[this.resolvedCount++] = index;
+	}
+
+	// The positions with a move into one decided in the last sweep, which starts the next one
+	private BitSet frontier() {
+		BitSet candidates = new BitSet(this.size);
+
+		for (int i = 0; i < this.resolvedCount; i++) {
+			int count = predecessors(this.material.decode(this.resolved[i], this.squares));
+
+			for (int p = 0; p < count; p++) {
+				if (this.wdl[this.predecessors[p]] != INVALID) {
+					candidates.set(this.predecessors[p]);
+				}
+			}
+		}
+
+		this.resolvedCount = 0;
+
+		return candidates;
+	}
+
+	// Undoes a quiet move or pawn push of the side that just moved. Captures and promotions come from other tables.
+	private int predecessors(boolean blackToMove) {
+		Color mover = blackToMove ? Color.WHITE : Color.BLACK;
+		long occupancy = occupancy(this.squares, -1);
+		int count = 0;
+
+		for (int i = 0; i < this.pieceCount; i++) {
+			if (this.colors[i] != mover) {
+				continue;
+			}
+
+			int to = this.squares[i];
+			long origins;
+
+			if (this.types[i] != PieceType.PAWN) {
+				origins = attacks(this.types[i], mover, to, occupancy) & ~occupancy;
+			} else {
+				int back = (mover == Color.WHITE) ? 8 : -8;
+
+				origins = 0L;
+
+				if (((occupancy >>> (to + back)) & 1) == 0) {
+					origins |= 1L << (to + back);
+
+					if ((to >>> 3) == ((mover == Color.WHITE) ? 4 : 3) && ((occupancy >>> (to + 2 * back)) & 1) == 0) {
+						origins |= 1L << (to + 2 * back);
+					}
+				}
+			}
+
+			for (; origins != 0; origins &= origins - 1) {
+				System.arraycopy(this.squares, 0, this.moved, 0, this.pieceCount);
+				this.moved[i] = Long.numberOfTrailingZeros(origins);
+				this.predecessors[count++] = (int) this.material.index(this.moved, !blackToMove);
+			}
+		}
+
+		return count;
+	}
+
+	private boolean isValid(boolean blackToMove) {
+		long occupancy = occupancy(this.squares, -1);
+
+		if (Long.bitCount(occupancy) != this.pieceCount) {
+			return false;
+		}
+
+		for (int i = 0; i < this.pieceCount; i++) {
+			if (this.types[i] == PieceType.PAWN && (this.squares[i] < 8 || this.squares[i] >= 56)) {
+				return false;
+			}
+		}
+
+		// The side that just moved cannot have left its king in check
+		Color us = blackToMove ? Color.BLACK : Color.WHITE;
+		Color them = blackToMove ? Color.WHITE : Color.BLACK;
+
+		return !attacked(this.squares[this.material.king(them)], us, this.squares, -1, occupancy);
+	}
+
+	private boolean isInCheck(boolean blackToMove) {
+		Color us = blackToMove ? Color.BLACK : Color.WHITE;
+		Color them = blackToMove ? Color.WHITE : Color.BLACK;
+
+		return attacked(this.squares[this.material.king(us)], them, this.squares, -1, occupancy(this.squares, -1));
+	}
+
+	// Legal moves of the decoded position. Moves that stay in the table go to successors, the others only count
+	// towards legalMoves and, with exits, towards the best result they reach.
+	private int generate(boolean blackToMove, boolean withExits) {
+		Color us = blackToMove ? Color.BLACK : Color.WHITE;
+		Color them = blackToMove ? Color.WHITE : Color.BLACK;
+		long occupancy = occupancy(this.squares, -1);
+		long own = 0L;
+		int king = this.material.king(us);
+		int count = 0;
+
+		for (int i = 0; i < this.pieceCount; i++) {
+			if (this.colors[i] == us) {
+				own |= 1L << this.squares[i];
+			}
+		}
+
+		this.legalMoves = 0;
+		this.exitBest = NO_EXIT;
+
+		for (int i = 0; i < this.pieceCount; i++) {
+			if (this.colors[i] != us) {
+				continue;
+			}
+
+			int from = this.squares[i];
+			boolean pawn = this.types[i] == PieceType.PAWN;
+
+			for (long targets = targets(i, us, occupancy, own); targets != 0; targets &= targets - 1) {
+				int to = Long.numberOfTrailingZeros(targets);
+				int captured = (((occupancy & ~own) >>> to) & 1) != 0 ? pieceAt(to) : -1;
+
+				System.arraycopy(this.squares, 0, this.moved, 0, this.pieceCount);
+				this.moved[i] = to;
+
+				if (attacked(this.moved[king], them, this.moved, captured, (occupancy & ~(1L << from)) | (1L << to))) {
+					continue;
+				}
+
+				this.legalMoves++;
+
+				boolean promotion = pawn && (to < 8 || to >= 56);
+
+				if (captured >= 0 || promotion) {
+					if (withExits) {
+						this.exitBest = Math.max(this.exitBest, exitValue(i, captured, promotion, blackToMove));
+					}
+
+					continue;
+				}
+
+				this.successors[count] = (int) this.material.index(this.moved, !blackToMove);
+				this.zeroing[count] = pawn;
+				this.caps[count] = (pawn && Math.abs(to - from) == 16) ? enPassantCap(i, from, to, blackToMove)
+						: NO_EXIT;
+				count++;
+			}
+		}
+
+		return count;
+	}
+
+	private long targets(int piece, Color us, long occupancy, long own) {
+		int from = this.squares[piece];
+
+		if (this.types[piece] != PieceType.PAWN) {
+			return attacks(this.types[piece], us, from, occupancy) & ~own;
+		}
+
+		int forward = (us == Color.WHITE) ? -8 : 8;
+		int single = from + forward;
+		long targets = Attacks.pawnAttacks(us, from) & occupancy & ~own;
+
+		if (((occupancy >>> single) & 1) == 0) {
+			targets |= 1L << single;
+
+			if ((from >>> 3) == ((us == Color.WHITE) ? 6 : 1) && ((occupancy >>> (single + forward)) & 1) == 0) {
+				targets |= 1L << (single + forward);
+			}
+		}
+
+		return targets;
+	}
+
+	private static long attacks(PieceType type, Color color, int square, long occupancy) {
+		switch (type) {
+		case PAWN:
+			return Attacks.pawnAttacks(color, square);
+		case KNIGHT:
+			return Attacks.knightAttacks(square);
+		case BISHOP:
+			return Attacks.bishopAttacks(square, occupancy);
+		case ROOK:
+			return Attacks.rookAttacks(square, occupancy);
+		case QUEEN:
+			return Attacks.queenAttacks(square, occupancy);
+		default:
+			return Attacks.kingAttacks(square);
+		}
+	}
+
+	private boolean attacked(int square, Color color, int[] squares, int removed, long occupancy) {
+		for (int i = 0; i < this.pieceCount; i++) {
+			if (i != removed && this.colors[i] == color
+					&& ((attacks(this.types[i], color, squares[i], occupancy) >>> square) & 1) != 0) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	private long occupancy(int[] squares, int removed) {
+		long occupancy = 0L;
+
+		for (int i = 0; i < this.pieceCount; i++) {
+			if (i != removed) {
+				occupancy |= 1L << squares[i];
+			}
+		}
+
+		return occupancy;
+	}
+
+	private int pieceAt(int square) {
+		for (int i = 0; i < this.pieceCount; i++) {
+			if (this.squares[i] == square) {
+				return i;
+			}
+		}
+
+		return -1;
+	}
+
+	// The mover's result for a capture or promotion, the best promotion when there is a choice
+	private int exitValue(int piece, int captured, boolean promotion, boolean blackToMove) {
+		int count = subPosition(this.moved, captured);
+		int mover = (captured >= 0 && captured < piece) ? piece - 1 : piece;
+
+		if (!promotion) {
+			return -probeWdl(count, !blackToMove);
+		}
+
+		int best = Tablebase.LOSS;
+
+		for (PieceType type : PROMOTIONS) {
+			this.subTypes[mover] = type;
+			best = Math.max(best, -probeWdl(count, !blackToMove));
+		}
+
+		return best;
+	}
+
+	// After a double push the opponent may take en passant instead of moving into the table: its best result that
+	// way caps how well the push can turn out for the mover
+	private byte enPassantCap(int pawn, int from, int to, boolean blackToMove) {
+		Color us = blackToMove ? Color.BLACK : Color.WHITE;
+		Color them = blackToMove ? Color.WHITE : Color.BLACK;
+		int target = (from + to) >>> 1;
+		int best = NO_EXIT;
+
+		for (int i = 0; i < this.pieceCount; i++) {
+			if (this.colors[i] != them || this.types[i] != PieceType.PAWN || (this.moved[i] >>> 3) != (to >>> 3)
+					|| Math.abs((this.moved[i] & 7) - (to & 7)) != 1) {
+				continue;
+			}
+
+			System.arraycopy(this.moved, 0, this.enPassant, 0, this.pieceCount);
+			this.enPassant[i] = target;
+
+			if (attacked(this.enPassant[this.material.king(them)], us, this.enPassant, pawn,
+					occupancy(this.enPassant, pawn))) {
+				continue;
+			}
+
+			best = Math.max(best, -probeWdl(subPosition(this.enPassant, pawn), blackToMove));
+		}
+
+		return (byte) best;
+	}
+
+	private int subPosition(int[] squares, int removed) {
+		int count = 0;
+
+		for (int i = 0; i < this.pieceCount; i++) {
+			if (i != removed) {
+				this.subTypes[count] = this.types[i];
+				this.subColors[count] = this.colors[i];
+				this.subSquares[count++] = squares[i];
+			}
+		}
+
+		return count;
+	}
+
+	private int probeWdl(int count, boolean blackToMove) {
+		int result = this.tablebase.probe(count, this.subTypes, this.subColors, this.subSquares, blackToMove);
+
+		if (result == Tablebase.NONE) {
+			throw new ChessException("A table needed by " + this.material + " is missing");
+		}
+
+		return Tablebase.wdl(result);
+	}
+
+}
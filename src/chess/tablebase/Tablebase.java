@@ -0,0 +1,318 @@
+package chess.tablebase;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import chess.ChessBoard;
+import chess.ChessMatch;
+import chess.Color;
+import chess.Move;
+import chess.PieceType;
+
+// Exact win/draw/loss and distance to zeroing (plies to the next capture or pawn move, or to mate) for the
+// positions covered by the tables of a directory. Results are packed ints, read with wdl() and dtz(). The tables
+// ignore the fifty-move rule, and positions with castling rights are not covered. One instance can be shared by
+// every match and search thread.
+public class Tablebase {
+	public static final int NONE = -1;
+
+	public static final int LOSS = -1;
+	public static final int DRAW = 0;
+	public static final int WIN = 1;
+
+	public static final String EXTENSION = ".ctb";
+	public static final int DEFAULT_CACHE_BLOCKS = 64;
+
+	private static final int NO_RANK = Integer.MIN_VALUE;
+	private static final int MAX_RANK = 512;
+
+	// One instance serves every search thread, so the probe buffers are per thread as in a SearchEngine
+	private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+	private Path directory;
+	private BlockCache cache;
+	private Map<String, TablebaseFile> files = new ConcurrentHashMap<>();
+	private volatile int maxPieces;
+
+	public Tablebase(Path directory) throws IOException {
+		this(directory, DEFAULT_CACHE_BLOCKS);
+	}
+
+	public Tablebase(Path directory, int cacheBlocks) throws IOException {
+		this.directory = directory;
+		this.cache = new BlockCache(cacheBlocks);
+
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + EXTENSION)) {
+			for (Path path : stream) {
+				String file = path.getFileName().toString();
+
+				open(file.substring(0, file.length() - EXTENSION.length()));
+			}
+		}
+	}
+
+	public static int wdl(int result) {
+		return (result >> 8) - 1;
+	}
+
+	public static int dtz(int result) {
+		return result & 0xFF;
+	}
+
+	static int result(int wdl, int dtz) {
+		return ((wdl + 1) << 8) | dtz;
+	}
+
+	public int getMaxPieces() {
+		return maxPieces;
+	}
+
+	public int getTableCount() {
+		return files.size();
+	}
+
+	public long getCacheHits() {
+		return cache.getHits();
+	}
+
+	public long getCacheMisses() {
+		return cache.getMisses();
+	}
+
+	public boolean contains(String material) {
+		return this.files.containsKey(Material.canonical(material));
+	}
+
+	Path path(String name) {
+		return this.directory.resolve(name + EXTENSION);
+	}
+
+	// Also used by the generator, so each new table can be probed while the next one is built
+	synchronized void open(String name) throws IOException {
+		if (this.files.containsKey(name)) {
+			return;
+		}
+
+		Material material = Material.of(name);
+
+		this.files.put(name, new TablebaseFile(path(name), material, this.files.size()));
+		this.maxPieces = Math.max(this.maxPieces, material.getPieceCount());
+	}
+
+	public int probe(ChessMatch chessMatch) {
+		ChessBoard board = chessMatch.getBoard();
+		int count = Long.bitCount(board.getOccupancy());
+
+		if (count > this.maxPieces || chessMatch.getCastlingRights() != 0) {
+			return NONE;
+		}
+
+		// The tables have no en passant rights, so those positions are probed one move further
+		if (chessMatch.getEnPassantSquare() >= 0) {
+			return probeMoves(chessMatch);
+		}
+
+		Scratch scratch = SCRATCH.get();
+		PieceType[] types = scratch.types;
+		Color[] colors = scratch.colors;
+		int[] squares = scratch.squares;
+		int piece = 0;
+
+		for (Color color : Color.values()) {
+			for (PieceType type : PieceType.values()) {
+				for (int i = 0; i < board.getPieceCount(color, type); i++) {
+					types[piece] = type;
+					colors[piece] = color;
+					squares[piece++] = board.getPieceSquare(color, type, i);
+				}
+			}
+		}
+
+		return probe(count, types, colors, squares, chessMatch.getCurrentPlayer() == Color.BLACK);
+	}
+
+	// Pieces in any order. Tables stored for the other color are probed with the board flipped.
+	int probe(int count, PieceType[] types, Color[] colors, int[] squares, boolean blackToMove) {
+		if (count == 2) {
+			return result(DRAW, 0);
+		}
+
+		Scratch scratch = SCRATCH.get();
+		int[][] counts = scratch.counts;
+
+		Arrays.fill(counts[Color.WHITE.ordinal()], 0);
+		Arrays.fill(counts[Color.BLACK.ordinal()], 0);
+
+		for (int i = 0; i < count; i++) {
+			counts[colors[i].ordinal()][types[i].ordinal()]++;
+		}
+
+		String white = Material.side(counts[Color.WHITE.ordinal()]);
+		String black = Material.side(counts[Color.BLACK.ordinal()]);
+		boolean flip = Material.compareSides(white, black) < 0;
+		TablebaseFile file = this.files.get(flip ? black + "v" + white : white + "v" + black);
+
+		if (file == null) {
+			return NONE;
+		}
+
+		Material material = file.getMaterial();
+		int[] tableSquares = scratch.tableSquares;
+		long used = 0L;
+
+		for (int slot = 0; slot < count; slot++) {
+			Color color = material.getColor(slot);
+
+			if (flip) {
+				color = (color == Color.WHITE) ? Color.BLACK : Color.WHITE;
+			}
+
+			for (int i = 0; i < count; i++) {
+				if (((used >>> i) & 1) == 0 && types[i] == material.getType(slot) && colors[i] == color) {
+					used |= 1L << i;
+					tableSquares[slot] = flip ? squares[i] ^ 56 : squares[i];
+					break;
+				}
+			}
+		}
+
+		int entry = file.entry(material.index(tableSquares, blackToMove != flip), this.cache);
+
+		if (entry == TablebaseFile.INVALID) {
+			return NONE;
+		}
+
+		if (entry == TablebaseFile.DRAW) {
+			return result(DRAW, 0);
+		}
+
+		return (entry < TablebaseFile.LOSS) ? result(WIN, entry) : result(LOSS, entry - TablebaseFile.LOSS);
+	}
+
+	private int probeMoves(ChessMatch chessMatch) {
+		Scratch scratch = SCRATCH.get();
+
+		try {
+			return probeMoves(chessMatch, scratch.push());
+		} finally {
+			scratch.depth--;
+		}
+	}
+
+	private int probeMoves(ChessMatch chessMatch, int[] moves) {
+		int count = chessMatch.generateLegalMoves(moves);
+
+		if (count == 0) {
+			return (chessMatch.getCheckers() != 0) ? result(LOSS, 0) : result(DRAW, 0);
+		}
+
+		int bestRank = NO_RANK;
+
+		for (int i = 0; i < count; i++) {
+			int rank = rank(chessMatch, moves[i]);
+
+			if (rank == NO_RANK) {
+				return NONE;
+			}
+
+			bestRank = Math.max(bestRank, rank);
+		}
+
+		if (bestRank > 0) {
+			return result(WIN, MAX_RANK - bestRank / 2);
+		}
+
+		return (bestRank < 0) ? result(LOSS, MAX_RANK + bestRank / 2) : result(DRAW, 0);
+	}
+
+	// The move that keeps the best result: the fastest zeroing when winning, the slowest when losing, mate first.
+	// Move.NONE when the position is not covered or has no legal move.
+	public int bestMove(ChessMatch chessMatch) {
+		if (probe(chessMatch) == NONE) {
+			return Move.NONE;
+		}
+
+		Scratch scratch = SCRATCH.get();
+
+		try {
+			return bestMove(chessMatch, scratch.push());
+		} finally {
+			scratch.depth--;
+		}
+	}
+
+	private int bestMove(ChessMatch chessMatch, int[] moves) {
+		int count = chessMatch.generateLegalMoves(moves);
+		int best = Move.NONE;
+		int bestRank = NO_RANK;
+
+		for (int i = 0; i < count; i++) {
+			int rank = rank(chessMatch, moves[i]);
+
+			if (rank == NO_RANK) {
+				return Move.NONE;
+			}
+
+			if (rank > bestRank) {
+				best = moves[i];
+				bestRank = rank;
+			}
+		}
+
+		return best;
+	}
+
+	// Wins rank above draws above losses, each ordered by the distance to zeroing after the move
+	private int rank(ChessMatch chessMatch, int move) {
+		boolean zeroing = Move.isCapture(move)
+				|| chessMatch.getBoard().piece(Move.from(move)).getType() == PieceType.PAWN;
+
+		chessMatch.makeMove(move);
+		int result = probe(chessMatch);
+		chessMatch.unmakeMove();
+
+		if (result == NONE) {
+			return NO_RANK;
+		}
+
+		int dtz = zeroing ? 1 : dtz(result) + 1;
+
+		switch (wdl(result)) {
+		case LOSS:
+			return 2 * (MAX_RANK - dtz) + ((dtz(result) == 0) ? 1 : 0);
+		case WIN:
+			return -2 * (MAX_RANK - dtz);
+		default:
+			return 0;
+		}
+	}
+
+	private static class Scratch {
+		private PieceType[] types = new PieceType[64];
+		private Color[] colors = new Color[64];
+		private int[] squares = new int[64];
+		private int[] tableSquares = new int[64];
+		private int[][] counts = new int[Color.values().length][PieceType.values().length];
+		// Probing past an en passant square recurses through rank(), one move list per level
+		private int[][] moves = new int[4][];
+		private int depth;
+
+		int[] push() {
+			if (this.depth == this.moves.length) {
+				this.moves = Arrays.copyOf(this.moves, this.depth * 2);
+			}
+
+			if (this.moves[this.depth] == null) {
+				this.moves[this.depth] = new int[ChessMatch.MAX_MOVES];
+			}
+
+			return this.moves[this.depth++];
+		}
+	}
+
+}
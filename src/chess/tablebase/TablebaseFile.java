@@ -0,0 +1,148 @@
+package chess.tablebase;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import chess.ChessException;
+
+// One table on disk, little endian: header | block offsets | deflated blocks. The file is mapped and a block is only
+// inflated when a probe lands in it. Entries are one byte: 0 draw, 1-127 win and 128-254 loss with the distance to
+// zeroing in the low 7 bits, 255 for an index that is not a legal position.
+final class TablebaseFile {
+	static final long MAGIC = 0x3142544353534843L;
+	static final int VERSION = 1;
+	static final int HEADER_SIZE = 32;
+	static final int BLOCK_SIZE = 1 << 15;
+
+	static final int DRAW = 0;
+	static final int LOSS = 128;
+	static final int INVALID = 255;
+
+	private Material material;
+	private int id;
+	private ByteBuffer data;
+	private int blockCount;
+
+	TablebaseFile(Path path, Material material, int id) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long size = channel.size();
+
+			if (size > Integer.MAX_VALUE) {
+				throw new ChessException("Tablebase file too large: " + path);
+			}
+
+			ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size).order(ByteOrder.LITTLE_ENDIAN);
+
+			if (size < HEADER_SIZE || buffer.getLong(0) != MAGIC || buffer.getInt(8) != VERSION
+					|| buffer.getInt(12) != BLOCK_SIZE || buffer.getLong(16) != material.getSize()) {
+				throw new ChessException("Not a " + material + " tablebase: " + path);
+			}
+
+			this.material = material;
+			this.id = id;
+			this.data = buffer;
+			this.blockCount = buffer.getInt(24);
+		}
+	}
+
+	Material getMaterial() {
+		return material;
+	}
+
+	int entry(long index, BlockCache cache) {
+		int block = (int) (index / BLOCK_SIZE);
+		long key = BlockCache.key(this.id, block);
+		byte[] entries = cache.get(key);
+
+		if (entries == null) {
+			entries = inflate(block);
+			cache.put(key, entries);
+		}
+
+		return entries[(int) (index % BLOCK_SIZE)] & 0xFF;
+	}
+
+	private byte[] inflate(int block) {
+		int start = (int) this.data.getLong(HEADER_SIZE + block * Long.BYTES);
+		int end = (int) this.data.getLong(HEADER_SIZE + (block + 1) * Long.BYTES);
+		byte[] compressed = new byte[end - start];
+		ByteBuffer source = this.data.duplicate();
+
+		source.position(start);
+		source.get(compressed);
+
+		Inflater inflater = new Inflater();
+		byte[] entries = new byte[(int) Math.min(BLOCK_SIZE, this.material.getSize() - (long) block * BLOCK_SIZE)];
+
+		try {
+			inflater.setInput(compressed);
+
+			if (inflater.inflate(entries) != entries.length) {
+				throw new ChessException("Truncated block " + block + " in the " + this.material + " tablebase");
+			}
+		} catch (DataFormatException e) {
+			throw new ChessException("Corrupt block " + block + " in the " + this.material + " tablebase");
+		} finally {
+			inflater.end();
+		}
+
+		return entries;
+	}
+
+	static void write(Path path, byte[] entries) throws IOException {
+		int blockCount = (entries.length + BLOCK_SIZE - 1) / BLOCK_SIZE;
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE + (blockCount + 1) * Long.BYTES)
+				.order(ByteOrder.LITTLE_ENDIAN);
+		Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+		byte[] compressed = new byte[BLOCK_SIZE * 2];
+
+		header.putLong(MAGIC);
+		header.putInt(VERSION);
+		header.putInt(BLOCK_SIZE);
+		header.putLong(entries.length);
+		header.putInt(blockCount);
+		header.putInt(0);
+
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			long offset = header.capacity();
+
+			channel.position(offset);
+
+			for (int block = 0; block < blockCount; block++) {
+				int start = block * BLOCK_SIZE;
+
+				deflater.reset();
+				deflater.setInput(entries, start, Math.min(BLOCK_SIZE, entries.length - start));
+				deflater.finish();
+
+				int length = deflater.deflate(compressed);
+				ByteBuffer buffer = ByteBuffer.wrap(compressed, 0, length);
+
+				header.putLong(offset);
+				offset += length;
+
+				while (buffer.hasRemaining()) {
+					channel.write(buffer);
+				}
+			}
+
+			header.putLong(offset);
+			header.flip();
+
+			for (long done = 0; header.hasRemaining();) {
+				done += channel.write(header, done);
+			}
+		} finally {
+			deflater.end();
+		}
+	}
+
+}
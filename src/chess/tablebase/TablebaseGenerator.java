@@ -0,0 +1,118 @@
+package chess.tablebase;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import chess.ChessException;
+
+// Builds tables into the directory of a Tablebase, smaller tables first since captures and promotions lead there
+public class TablebaseGenerator {
+	public static final int MAX_PIECES = 4;
+
+	// Building a table probes its smaller tables all over, a cache this size holds a whole 4 piece table
+	public static final int CACHE_BLOCKS = 1024;
+
+	private Tablebase tablebase;
+
+	public TablebaseGenerator(Tablebase tablebase) {
+		this.tablebase = tablebase;
+	}
+
+	public Tablebase getTablebase() {
+		return tablebase;
+	}
+
+	// Every table with this many pieces, kings included
+	public static List<String> materials(int pieces) {
+		List<String> sides = new ArrayList<>();
+		Set<String> materials = new LinkedHashSet<>();
+
+		addSides(sides, "K", 1, pieces - 2);
+
+		for (String white : sides) {
+			for (String black : sides) {
+				if (white.length() + black.length() == pieces) {
+					materials.add(Material.canonical(white + "v" + black));
+				}
+			}
+		}
+
+		return new ArrayList<>(materials);
+	}
+
+	private static void addSides(List<String> sides, String side, int first, int left) {
+		sides.add(side);
+
+		for (int i = first; left > 0 && i < Material.LETTERS.length(); i++) {
+			addSides(sides, side + Material.LETTERS.charAt(i), i, left - 1);
+		}
+	}
+
+	// Builds the table and every missing table it depends on, returns the names built
+	public List<String> generate(String material) throws IOException {
+		List<String> built = new ArrayList<>();
+
+		generate(Material.canonical(material), built);
+
+		return built;
+	}
+
+	private void generate(String name, List<String> built) throws IOException {
+		if (name.equals("KvK") || this.tablebase.contains(name)) {
+			return;
+		}
+
+		Material material = Material.of(name);
+
+		if (material.getPieceCount() > MAX_PIECES) {
+			throw new ChessException("Tables can be generated for up to " + MAX_PIECES + " pieces: " + name);
+		}
+
+		for (String child : children(name)) {
+			generate(child, built);
+		}
+
+		TablebaseFile.write(this.tablebase.path(name), new TableBuilder(material, this.tablebase).build());
+		this.tablebase.open(name);
+		built.add(name);
+	}
+
+	// The materials one capture or promotion away
+	private static Set<String> children(String name) {
+		Set<String> children = new LinkedHashSet<>();
+		int split = name.indexOf('v');
+
+		for (int i = 0; i < name.length(); i++) {
+			char c = name.charAt(i);
+
+			if (c == 'K' || c == 'v') {
+				continue;
+			}
+
+			children.add(Material.canonical(name.substring(0, i) + name.substring(i + 1)));
+
+			if (c != 'P') {
+				continue;
+			}
+
+			for (char promotion : "QRBN".toCharArray()) {
+				String promoted = name.substring(0, i) + promotion + name.substring(i + 1);
+
+				children.add(Material.canonical(promoted));
+
+				// Promotions that capture on the last rank
+				for (int j = 0; j < name.length(); j++) {
+					if ((j < split) != (i < split) && promoted.charAt(j) != 'K' && j != split) {
+						children.add(Material.canonical(promoted.substring(0, j) + promoted.substring(j + 1)));
+					}
+				}
+			}
+		}
+
+		return children;
+	}
+
+}